@@ -0,0 +1,106 @@
+package com.cc.draw.benchmark;
+
+import com.cc.draw.grid.GridAreaCodec;
+import com.cc.draw.grid.GridMask;
+import com.cc.draw.grid.MaskDelta;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * getArea/drawArea使用的区域编解码
+ */
+@State(Scope.Thread)
+public class AreaCodecBenchmark {
+
+    @Param({"12x20", "36x64", "72x128"})
+    public String grid;
+
+    private GridMask mask;
+    private GridMask target;
+    private byte[] packed, rle;
+    private String text;
+    /**
+     * 旧格式只支持不超过31列，固定使用12x20
+     */
+    private GridMask legacyMask;
+    private String legacy;
+    /**
+     * 增量通知：每次修改一小段后与上次通知时的网格比较，对比每次重新编码整个网格
+     */
+    private GridMask edited, reported;
+    private MaskDelta delta = new MaskDelta();
+
+    @Setup
+    public void setup() {
+        int[] size = Fixtures.parseGrid(grid);
+        mask = Fixtures.lassoMask(size[0], size[1]);
+        target = new GridMask(size[0], size[1]);
+        packed = GridAreaCodec.encode(mask, GridAreaCodec.FORMAT_PACKED);
+        rle = GridAreaCodec.encode(mask, GridAreaCodec.FORMAT_RLE);
+        text = GridAreaCodec.toText(mask);
+        legacyMask = Fixtures.lassoMask(12, 20);
+        legacy = GridAreaCodec.toLegacy(legacyMask);
+        edited = new GridMask(mask);
+        reported = new GridMask(mask);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return GridAreaCodec.encode(mask);
+    }
+
+    @Benchmark
+    public byte[] encodePacked() {
+        return GridAreaCodec.encode(mask, GridAreaCodec.FORMAT_PACKED);
+    }
+
+    @Benchmark
+    public byte[] encodeRle() {
+        return GridAreaCodec.encode(mask, GridAreaCodec.FORMAT_RLE);
+    }
+
+    @Benchmark
+    public GridMask decodePacked() {
+        GridAreaCodec.decode(packed, target);
+        return target;
+    }
+
+    @Benchmark
+    public GridMask decodeRle() {
+        GridAreaCodec.decode(rle, target);
+        return target;
+    }
+
+    @Benchmark
+    public String toText() {
+        return GridAreaCodec.toText(mask);
+    }
+
+    @Benchmark
+    public GridMask fromText() {
+        return GridAreaCodec.fromText(text, mask.getColumns());
+    }
+
+    @Benchmark
+    public MaskDelta delta() {
+        int row = edited.getRows() / 2;
+        int column = edited.getColumns() / 3;
+        edited.toggleSpan(row, column, column + 8);
+        delta.compute(reported, edited);
+        return delta;
+    }
+
+    @Benchmark
+    public String toLegacy() {
+        return GridAreaCodec.toLegacy(legacyMask);
+    }
+
+    @Benchmark
+    public GridMask fromLegacy() {
+        return GridAreaCodec.fromLegacy(legacy, 20);
+    }
+}
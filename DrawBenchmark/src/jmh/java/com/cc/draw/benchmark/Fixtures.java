@@ -0,0 +1,58 @@
+package com.cc.draw.benchmark;
+
+import com.cc.draw.grid.GridMask;
+import com.cc.draw.grid.PolygonRasterizer;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的固定数据，随机数种子固定以保证每次运行的数据相同
+ */
+final class Fixtures {
+
+    /**
+     * 模拟的View尺寸
+     */
+    static final float VIEW_WIDTH = 1280;
+    static final float VIEW_HEIGHT = 720;
+
+    private Fixtures() {
+    }
+
+    /**
+     * 解析"行x列"格式的网格尺寸
+     */
+    static int[] parseGrid(String grid) {
+        int index = grid.indexOf('x');
+        return new int[]{Integer.parseInt(grid.substring(0, index)), Integer.parseInt(grid.substring(index + 1))};
+    }
+
+    /**
+     * 生成一个类似手绘套索的星形多边形，顶点坐标为 x0, y0, x1, y1 ...
+     */
+    static float[] lasso(int vertexCount, float centerX, float centerY, float radius, long seed) {
+        Random random = new Random(seed);
+        float[] points = new float[vertexCount * 2];
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = Math.PI * 2 * i / vertexCount;
+            float r = radius * (0.6f + 0.4f * random.nextFloat());
+            points[i * 2] = centerX + (float) (Math.cos(angle) * r);
+            points[i * 2 + 1] = centerY + (float) (Math.sin(angle) * r);
+        }
+        return points;
+    }
+
+    /**
+     * 生成一个已填充套索区域和少量噪点的网格
+     */
+    static GridMask lassoMask(int rows, int columns) {
+        GridMask mask = new GridMask(rows, columns);
+        float[] points = lasso(64, VIEW_WIDTH / 2, VIEW_HEIGHT / 2, VIEW_HEIGHT * 0.4f, 1);
+        new PolygonRasterizer().fill(points, 64, VIEW_WIDTH / columns, VIEW_HEIGHT / rows, mask, true);
+        Random random = new Random(2);
+        for (int i = 0; i < rows * columns / 50; i++) {
+            mask.set(random.nextInt(rows), random.nextInt(columns));
+        }
+        return mask;
+    }
+}
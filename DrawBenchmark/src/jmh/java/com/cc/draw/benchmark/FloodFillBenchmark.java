@@ -0,0 +1,57 @@
+package com.cc.draw.benchmark;
+
+import com.cc.draw.grid.FloodFill;
+import com.cc.draw.grid.GridMask;
+import com.cc.draw.grid.GridMorphology;
+import com.cc.draw.grid.StructuringElement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 点击填充，需要在一帧内完成
+ */
+@State(Scope.Thread)
+public class FloodFillBenchmark {
+
+    @Param({"36x64", "72x128"})
+    public String grid;
+
+    private GridMask empty;
+    private GridMask outline;
+    private GridMask mask;
+    private final FloodFill floodFill = new FloodFill();
+
+    @Setup
+    public void setup() {
+        int[] size = Fixtures.parseGrid(grid);
+        empty = new GridMask(size[0], size[1]);
+        //套索区域向外膨胀一格后去掉原区域，得到一圈轮廓
+        GridMask lasso = Fixtures.lassoMask(size[0], size[1]);
+        outline = new GridMask(lasso);
+        new GridMorphology().dilate(outline, StructuringElement.square(1));
+        for (int r = 0; r < size[0]; r++) {
+            for (int c = 0; c < size[1]; c++) {
+                if (lasso.get(r, c)) {
+                    outline.clear(r, c);
+                }
+            }
+        }
+        mask = new GridMask(empty);
+    }
+
+    @Benchmark
+    public int fillEntireGrid() {
+        mask.copyFrom(empty);
+        return floodFill.fill(mask, 0, 0);
+    }
+
+    @Benchmark
+    public int fillInsideOutline() {
+        mask.copyFrom(outline);
+        return floodFill.fill(mask, mask.getRows() / 2, mask.getColumns() / 2);
+    }
+}
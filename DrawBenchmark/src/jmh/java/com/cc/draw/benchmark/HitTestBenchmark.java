@@ -0,0 +1,94 @@
+package com.cc.draw.benchmark;
+
+import com.cc.draw.grid.XyPolygon;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * DragXyView的点击判断（canDragEvent）和XyPoint的边界点更新
+ */
+@State(Scope.Thread)
+public class HitTestBenchmark {
+
+    private static final int QUERY_COUNT = 256;
+
+    @Param({"1", "8", "32"})
+    public int polygonCount;
+
+    @Param({"4", "16", "64"})
+    public int vertexCount;
+
+    private XyPolygon[] polygons;
+    private float[] queries;
+    private float[] moves;
+    private int moveIndex;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(polygonCount * 31L + vertexCount);
+        polygons = new XyPolygon[polygonCount];
+        for (int i = 0; i < polygonCount; i++) {
+            float radius = 40 + random.nextFloat() * 120;
+            float centerX = radius + random.nextFloat() * (Fixtures.VIEW_WIDTH - radius * 2);
+            float centerY = radius + random.nextFloat() * (Fixtures.VIEW_HEIGHT - radius * 2);
+            polygons[i] = new XyPolygon(Fixtures.lasso(vertexCount, centerX, centerY, radius, i));
+        }
+        queries = new float[QUERY_COUNT * 2];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i * 2] = random.nextFloat() * Fixtures.VIEW_WIDTH;
+            queries[i * 2 + 1] = random.nextFloat() * Fixtures.VIEW_HEIGHT;
+        }
+        moves = new float[1024 * 3];
+        for (int i = 0; i < 1024; i++) {
+            moves[i * 3] = random.nextInt(vertexCount);
+            moves[i * 3 + 1] = random.nextFloat() * Fixtures.VIEW_WIDTH;
+            moves[i * 3 + 2] = random.nextFloat() * Fixtures.VIEW_HEIGHT;
+        }
+    }
+
+    /**
+     * 与按下时的查找方式相同：按顺序找到第一个包含触摸点的多边形
+     */
+    @Benchmark
+    public int hitTest() {
+        int hits = 0;
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            float x = queries[q * 2];
+            float y = queries[q * 2 + 1];
+            for (XyPolygon polygon : polygons) {
+                if (polygon.contains(x, y)) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 拖动单个顶点时的边界点更新
+     */
+    @Benchmark
+    public int updatePoint() {
+        XyPolygon polygon = polygons[0];
+        int i = (moveIndex = (moveIndex + 1) & 1023) * 3;
+        polygon.setPoint((int) moves[i], moves[i + 1], moves[i + 2]);
+        return polygon.getLeftMostIndex();
+    }
+
+    /**
+     * 拖动整个多边形
+     */
+    @Benchmark
+    public int offset() {
+        XyPolygon polygon = polygons[0];
+        polygon.offset((moveIndex++ & 1) == 0 ? 1 : -1, 0);
+        return polygon.getRightMostIndex();
+    }
+}
@@ -0,0 +1,58 @@
+package com.cc.draw.benchmark;
+
+import com.cc.draw.grid.GridMask;
+import com.cc.draw.grid.GridMorphology;
+import com.cc.draw.grid.StructuringElement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 形态学运算，需要满足交互时实时执行
+ */
+@State(Scope.Thread)
+public class MorphologyBenchmark {
+
+    @Param({"36x64", "72x128"})
+    public String grid;
+
+    @Param({"1", "3"})
+    public int radius;
+
+    private GridMask source;
+    private GridMask mask;
+    private StructuringElement element;
+    private final GridMorphology morphology = new GridMorphology();
+
+    @Setup
+    public void setup() {
+        int[] size = Fixtures.parseGrid(grid);
+        source = Fixtures.lassoMask(size[0], size[1]);
+        mask = new GridMask(source);
+        element = StructuringElement.disk(radius);
+    }
+
+    @Benchmark
+    public GridMask dilate() {
+        mask.copyFrom(source);
+        morphology.dilate(mask, element);
+        return mask;
+    }
+
+    @Benchmark
+    public GridMask close() {
+        mask.copyFrom(source);
+        morphology.close(mask, element);
+        return mask;
+    }
+
+    @Benchmark
+    public GridMask fillHoles() {
+        mask.copyFrom(source);
+        morphology.fillHoles(mask);
+        return mask;
+    }
+}
@@ -0,0 +1,106 @@
+package com.cc.draw.benchmark;
+
+import com.cc.draw.grid.BrushStamp;
+import com.cc.draw.grid.CellRectMerger;
+import com.cc.draw.grid.GridMask;
+import com.cc.draw.grid.PolygonRasterizer;
+import com.cc.draw.grid.StrokeRasterizer;
+import com.cc.draw.grid.XyPolygon;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 抬手闭合填充（按中心点和按覆盖面积）、多边形列表转网格区域、笔画栅格化（含半径4的圆形画笔）以及绘制前的矩形合并
+ */
+@State(Scope.Thread)
+public class RasterizeBenchmark {
+
+    @Param({"12x20", "36x64", "72x128"})
+    public String grid;
+
+    @Param({"16", "128", "1024"})
+    public int vertexCount;
+
+    private float[] points;
+    /**
+     * 4个互相重叠的多边形，模拟DragXyView拖动顶点时的实时转换
+     */
+    private List<XyPolygon> polygons = new ArrayList<>();
+    private float cellWidth, cellHeight;
+    private GridMask mask;
+    private GridMask filled;
+    private final PolygonRasterizer polygonRasterizer = new PolygonRasterizer();
+    private final PolygonRasterizer coverageRasterizer = new PolygonRasterizer();
+    private final CellRectMerger rectMerger = new CellRectMerger();
+    private final BrushStamp brush = BrushStamp.disk(4);
+
+    @Setup
+    public void setup() {
+        int[] size = Fixtures.parseGrid(grid);
+        cellWidth = Fixtures.VIEW_WIDTH / size[1];
+        cellHeight = Fixtures.VIEW_HEIGHT / size[0];
+        points = Fixtures.lasso(vertexCount, Fixtures.VIEW_WIDTH / 2, Fixtures.VIEW_HEIGHT / 2,
+                Fixtures.VIEW_HEIGHT * 0.45f, vertexCount);
+        polygons.clear();
+        for (int i = 0; i < 4; i++) {
+            polygons.add(new XyPolygon(Fixtures.lasso(vertexCount, Fixtures.VIEW_WIDTH * (i + 1) / 5,
+                    Fixtures.VIEW_HEIGHT / 2, Fixtures.VIEW_HEIGHT * 0.3f, vertexCount + i)));
+        }
+        mask = new GridMask(size[0], size[1]);
+        coverageRasterizer.setFillPolicy(PolygonRasterizer.FILL_POLICY_COVERAGE, 0.5f);
+        filled = Fixtures.lassoMask(size[0], size[1]);
+    }
+
+    @Benchmark
+    public GridMask lassoFill() {
+        mask.clearAll();
+        polygonRasterizer.fill(points, vertexCount, cellWidth, cellHeight, mask, true);
+        return mask;
+    }
+
+    @Benchmark
+    public GridMask lassoFillCoverage() {
+        mask.clearAll();
+        coverageRasterizer.fill(points, vertexCount, cellWidth, cellHeight, mask, true);
+        return mask;
+    }
+
+    @Benchmark
+    public GridMask polygonListFill() {
+        mask.clearAll();
+        polygonRasterizer.fill(polygons, cellWidth, cellHeight, mask, true);
+        return mask;
+    }
+
+    @Benchmark
+    public GridMask strokeRasterize() {
+        mask.clearAll();
+        for (int i = 1; i < vertexCount; i++) {
+            StrokeRasterizer.drawLine(points[i * 2 - 2], points[i * 2 - 1], points[i * 2], points[i * 2 + 1],
+                    cellWidth, cellHeight, mask, true);
+        }
+        return mask;
+    }
+
+    @Benchmark
+    public GridMask brushStroke() {
+        mask.clearAll();
+        for (int i = 1; i < vertexCount; i++) {
+            brush.drawLine(points[i * 2 - 2], points[i * 2 - 1], points[i * 2], points[i * 2 + 1],
+                    cellWidth, cellHeight, mask, true);
+        }
+        return mask;
+    }
+
+    @Benchmark
+    public int mergeRects() {
+        return rectMerger.merge(filled);
+    }
+}
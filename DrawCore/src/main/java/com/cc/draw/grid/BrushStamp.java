@@ -0,0 +1,145 @@
+package com.cc.draw.grid;
+
+/**
+ * 画笔印章：绘制或擦除时以每个经过的网格为中心盖上一个圆形或正方形
+ * <p>
+ * 印章预先计算为每行一段列区间。沿线段盖章时，先按{@link StrokeRasterizer}的supercover规则求出线段在每行经过的列区间，
+ * 再对每个受影响的行取各区间平移印章后的并集。印章每行都包含中心列，相邻两行的线段区间又至少共享一列，
+ * 所以并集总是连续的一段，每个受影响的行只需一次整段写入，不会随半径增大而逐格重复写入。
+ * 结果与先画1格宽的线段再用同一形状膨胀相同。
+ * <p>
+ * 内部复用临时数组，非线程安全。
+ */
+public class BrushStamp {
+
+    private final int radius;
+    /**
+     * 第radius + dy项为行偏移dy上的列偏移区间[from, to]
+     */
+    private final int[] froms;
+    private final int[] tos;
+
+    /**
+     * 线段在每行经过的列区间（闭区间）
+     */
+    private int[] lineFrom = new int[16];
+    private int[] lineTo = new int[16];
+
+    private BrushStamp(StructuringElement element, int radius) {
+        this.radius = radius;
+        froms = new int[radius * 2 + 1];
+        tos = new int[radius * 2 + 1];
+        for (int i = 0; i < element.size(); i++) {
+            froms[element.getRowOffset(i) + radius] = element.getFrom(i);
+            tos[element.getRowOffset(i) + radius] = element.getTo(i);
+        }
+    }
+
+    /**
+     * 半径为radius的圆形，半径为0时即单个网格
+     */
+    public static BrushStamp disk(int radius) {
+        return new BrushStamp(StructuringElement.disk(radius), radius);
+    }
+
+    /**
+     * 边长为 2 * radius + 1 的正方形
+     */
+    public static BrushStamp square(int radius) {
+        return new BrushStamp(StructuringElement.square(radius), radius);
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * 以(row, column)为中心盖一次章
+     *
+     * @param fill true填充，false擦除
+     */
+    public void stamp(GridMask mask, int row, int column, boolean fill) {
+        for (int dy = -radius; dy <= radius; dy++) {
+            mask.setSpan(row + dy, column + froms[dy + radius], column + tos[dy + radius] + 1, fill);
+        }
+    }
+
+    /**
+     * 沿线段(x0, y0) - (x1, y1)经过的每个网格盖章
+     *
+     * @param cellWidth  网格宽度
+     * @param cellHeight 网格高度
+     * @param mask       目标网格
+     * @param fill       true填充，false擦除
+     */
+    public void drawLine(float x0, float y0, float x1, float y1, float cellWidth, float cellHeight,
+                         GridMask mask, boolean fill) {
+        if (cellWidth <= 0 || cellHeight <= 0) {
+            return;
+        }
+        if (radius == 0) {
+            StrokeRasterizer.drawLine(x0, y0, x1, y1, cellWidth, cellHeight, mask, fill);
+            return;
+        }
+        float ax = x0 / cellWidth;
+        float ay = y0 / cellHeight;
+        float bx = x1 / cellWidth;
+        float by = y1 / cellHeight;
+        if (ay > by) {
+            float t = ax;
+            ax = bx;
+            bx = t;
+            t = ay;
+            ay = by;
+            by = t;
+        }
+        //与StrokeRasterizer相同的supercover区间，限制在网格内
+        int lastColumn = mask.getColumns() - 1;
+        int firstRow = Math.max((int) Math.ceil(ay) - 1, 0);
+        int lastRow = Math.min((int) Math.floor(by), mask.getRows() - 1);
+        if (firstRow > lastRow || lastColumn < 0) {
+            return;
+        }
+        int lineRows = lastRow - firstRow + 1;
+        if (lineFrom.length < lineRows) {
+            lineFrom = new int[lineRows];
+            lineTo = new int[lineRows];
+        }
+        float dy = by - ay;
+        float dxdy = dy == 0 ? 0 : (bx - ax) / dy;
+        for (int row = firstRow; row <= lastRow; row++) {
+            float left;
+            float right;
+            if (dy == 0) {
+                left = Math.min(ax, bx);
+                right = Math.max(ax, bx);
+            } else {
+                float top = Math.max(ay, row);
+                float bottom = Math.min(by, row + 1);
+                float xTop = ax + (top - ay) * dxdy;
+                float xBottom = ax + (bottom - ay) * dxdy;
+                left = Math.min(xTop, xBottom);
+                right = Math.max(xTop, xBottom);
+            }
+            lineFrom[row - firstRow] = Math.max((int) Math.ceil(left) - 1, 0);
+            lineTo[row - firstRow] = Math.min((int) Math.floor(right), lastColumn);
+        }
+        //每个受影响的行取各线段行平移印章后的并集
+        for (int row = firstRow - radius; row <= lastRow + radius; row++) {
+            int from = Integer.MAX_VALUE;
+            int to = Integer.MIN_VALUE;
+            int lineStart = Math.max(row - radius, firstRow);
+            int lineEnd = Math.min(row + radius, lastRow);
+            for (int lineRow = lineStart; lineRow <= lineEnd; lineRow++) {
+                if (lineFrom[lineRow - firstRow] > lineTo[lineRow - firstRow]) {
+                    //该行线段在网格外
+                    continue;
+                }
+                int index = row - lineRow + radius;
+                from = Math.min(from, lineFrom[lineRow - firstRow] + froms[index]);
+                to = Math.max(to, lineTo[lineRow - firstRow] + tos[index]);
+            }
+            mask.setSpan(row, from, to + 1, fill);
+        }
+    }
+}
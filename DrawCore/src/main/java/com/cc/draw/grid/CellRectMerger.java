@@ -0,0 +1,89 @@
+package com.cc.draw.grid;
+
+/**
+ * 将填充的网格合并为尽量少的矩形，用于绘制
+ * <p>
+ * 先按行取出连续填充的最长区间，再向下合并区间完全相同的行。
+ * 当上一行存在完全相同的区间时，该区间已被合并，直接跳过，因此不需要额外的标记数组。
+ * 结果以网格为单位，每个矩形依次为 left, top, right, bottom（right、bottom不包含）。
+ */
+public class CellRectMerger {
+
+    private int[] rects = new int[64];
+    private int count;
+
+    /**
+     * 合并网格
+     *
+     * @param mask
+     * @return 矩形的数量
+     */
+    public int merge(GridMask mask) {
+        return merge(mask, 0, 0, mask.getRows(), mask.getColumns());
+    }
+
+    /**
+     * 合并[top, bottom) x [left, right)范围内的网格，范围外的网格视为未填充
+     *
+     * @return 矩形的数量
+     */
+    public int merge(GridMask mask, int top, int left, int bottom, int right) {
+        count = 0;
+        top = Math.max(top, 0);
+        left = Math.max(left, 0);
+        bottom = Math.min(bottom, mask.getRows());
+        right = Math.min(right, mask.getColumns());
+        for (int row = top; row < bottom; row++) {
+            int from = mask.nextSetBit(row, left);
+            while (from >= 0 && from < right) {
+                int to = Math.min(mask.nextClearBit(row, from), right);
+                if (row == top || !isRun(mask, row - 1, from, to, left, right)) {
+                    int end = row + 1;
+                    while (end < bottom && isRun(mask, end, from, to, left, right)) {
+                        end++;
+                    }
+                    add(from, row, to, end);
+                }
+                from = mask.nextSetBit(row, to);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 一行在[left, right)范围内是否恰好存在[from, to)这一段连续填充区间
+     */
+    private static boolean isRun(GridMask mask, int row, int from, int to, int left, int right) {
+        return mask.isSpanSet(row, from, to)
+                && (from == left || !mask.get(row, from - 1))
+                && (to == right || !mask.get(row, to));
+    }
+
+    private void add(int left, int top, int right, int bottom) {
+        int index = count << 2;
+        if (index + 4 > rects.length) {
+            int[] newRects = new int[rects.length << 1];
+            System.arraycopy(rects, 0, newRects, 0, index);
+            rects = newRects;
+        }
+        rects[index] = left;
+        rects[index + 1] = top;
+        rects[index + 2] = right;
+        rects[index + 3] = bottom;
+        count++;
+    }
+
+    /**
+     * 获取矩形的数量
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 获取矩形数组，第i个矩形位于[i * 4, i * 4 + 4)
+     */
+    public int[] getRects() {
+        return rects;
+    }
+}
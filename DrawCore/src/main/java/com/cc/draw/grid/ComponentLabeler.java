@@ -0,0 +1,480 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+
+/**
+ * 连通区域标记：把网格中已填充的网格划分为互不相连的区域，并统计每个区域的网格数量、外接矩形和重心
+ * <p>
+ * 以每行中连续填充的区间（run）为单位做并查集，相邻两行的区间按列重叠合并，耗时与区间数量成正比。
+ * 区域编号从0开始，按区域最上方一行中最左边的区间在网格中的先后顺序排列。
+ * <p>
+ * 绘制一笔后可以调用{@link #update(GridMask, int, int)}，只重新合并笔画经过的行附近的区域。
+ */
+public class ComponentLabeler {
+
+    /**
+     * 上下左右相邻才算连通
+     */
+    public static final int CONNECTIVITY_4 = 4;
+    /**
+     * 对角相邻也算连通
+     */
+    public static final int CONNECTIVITY_8 = 8;
+
+    private final int connectivity;
+
+    private int rows = -1, columns = -1;
+
+    /**
+     * 区间：第i个区间位于runRow[i]行的[runStart[i], runEnd[i])列，按行、列顺序排列，
+     * runId[i]为所属区域的内部编号，需要重新合并时为{@code -1}
+     */
+    private int runCount;
+    private int[] runRow = new int[16];
+    private int[] runStart = new int[16];
+    private int[] runEnd = new int[16];
+    private int[] runId = new int[16];
+    /**
+     * 第row行的区间为[rowFirstRun[row], rowFirstRun[row + 1])
+     */
+    private int[] rowFirstRun = new int[1];
+    private int[] parent = new int[16];
+
+    /**
+     * 增量更新时使用的备用数组，与上面的数组交替使用
+     */
+    private int[] spareRow = new int[16];
+    private int[] spareStart = new int[16];
+    private int[] spareEnd = new int[16];
+    private int[] spareId = new int[16];
+    private int[] spareFirstRun = new int[1];
+
+    /**
+     * 按内部编号保存的区域统计。内部编号在增量更新时保持不变，对外的区域编号通过labelId和idLabel转换
+     */
+    private int idCount;
+    private int[] cellCount = new int[8];
+    private int[] top = new int[8], left = new int[8], bottom = new int[8], right = new int[8];
+    private long[] sumRow = new long[8], sumColumn = new long[8];
+    /**
+     * 区域最上方一行中最左边的区间的起始列，用于排序
+     */
+    private int[] firstStart = new int[8];
+    private int[] idLabel = new int[8];
+    private boolean[] affected = new boolean[8];
+    private int freeCount;
+    private int[] freeIds = new int[8];
+
+    /**
+     * 对外的区域编号到内部编号，按区域最上方一行中最左边的区间排序
+     */
+    private int count;
+    private int[] labelId = new int[8];
+    private int[] spareLabelId = new int[8];
+    /**
+     * 本次新建的区域，按创建顺序（即排序顺序）排列
+     */
+    private int newCount;
+    private int[] newIds = new int[8];
+
+    public ComponentLabeler() {
+        this(CONNECTIVITY_8);
+    }
+
+    /**
+     * @param connectivity {@link #CONNECTIVITY_4} 或 {@link #CONNECTIVITY_8}
+     */
+    public ComponentLabeler(int connectivity) {
+        if (connectivity != CONNECTIVITY_4 && connectivity != CONNECTIVITY_8) {
+            throw new IllegalArgumentException("connectivity = " + connectivity);
+        }
+        this.connectivity = connectivity;
+    }
+
+    /**
+     * 重新标记整个网格
+     *
+     * @return 区域数量
+     */
+    public int label(GridMask mask) {
+        rows = mask.getRows();
+        columns = mask.getColumns();
+        runCount = 0;
+        rowFirstRun = ensure(rowFirstRun, rows + 1);
+        for (int r = 0; r < rows; r++) {
+            rowFirstRun[r] = runCount;
+            extractRuns(mask, r);
+        }
+        rowFirstRun[rows] = runCount;
+        idCount = 0;
+        freeCount = 0;
+        count = 0;
+        resolve(0, rows);
+        return count;
+    }
+
+    /**
+     * 网格只有[fromRow, toRow)行发生变化时更新标记。
+     * <p>
+     * 只重新提取变化的行的区间，其它行的区间整段复制；只有在变化的行及其上下相邻行中有区间的区域会被拆开，
+     * 与新的区间一起在这些区域的行范围内重新合并，其它区域的编号和统计直接保留。
+     * 耗时与受影响的区域的区间数量加上区域数量成正比，另有一次区间数组的整段复制。
+     * 网格尺寸变化或尚未标记过时等同于{@link #label(GridMask)}
+     *
+     * @return 区域数量
+     */
+    public int update(GridMask mask, int fromRow, int toRow) {
+        if (mask.getRows() != rows || mask.getColumns() != columns) {
+            return label(mask);
+        }
+        fromRow = Math.max(fromRow, 0);
+        toRow = Math.min(toRow, rows);
+        if (fromRow >= toRow) {
+            return count;
+        }
+        //在变化的行及相邻行中有区间的区域需要重新合并，重新合并的行范围扩大到这些区域的外接矩形
+        int low = fromRow, high = toRow;
+        affected = ensure(affected, idCount);
+        for (int i = rowFirstRun[Math.max(fromRow - 1, 0)], end = rowFirstRun[Math.min(toRow + 1, rows)]; i < end; i++) {
+            int id = runId[i];
+            if (!affected[id]) {
+                affected[id] = true;
+                low = Math.min(low, top[id]);
+                high = Math.max(high, bottom[id]);
+            }
+        }
+
+        //交换新旧数组，变化的行之前和之后的区间整段复制，变化的行重新提取
+        int[] oldRow = runRow, oldStart = runStart, oldEnd = runEnd, oldId = runId, oldFirstRun = rowFirstRun;
+        runRow = spareRow;
+        runStart = spareStart;
+        runEnd = spareEnd;
+        runId = spareId;
+        rowFirstRun = ensure(spareFirstRun, rows + 1);
+        spareRow = oldRow;
+        spareStart = oldStart;
+        spareEnd = oldEnd;
+        spareId = oldId;
+        spareFirstRun = oldFirstRun;
+        int prefix = oldFirstRun[fromRow];
+        growRuns(prefix);
+        copyRuns(oldRow, oldStart, oldEnd, oldId, 0, 0, prefix);
+        System.arraycopy(oldFirstRun, 0, rowFirstRun, 0, fromRow + 1);
+        runCount = prefix;
+        for (int r = fromRow; r < toRow; r++) {
+            rowFirstRun[r] = runCount;
+            extractRuns(mask, r);
+        }
+        int suffix = oldFirstRun[rows] - oldFirstRun[toRow];
+        int shift = runCount - oldFirstRun[toRow];
+        growRuns(runCount + suffix);
+        copyRuns(oldRow, oldStart, oldEnd, oldId, oldFirstRun[toRow], runCount, suffix);
+        for (int r = toRow; r <= rows; r++) {
+            rowFirstRun[r] = oldFirstRun[r] + shift;
+        }
+        runCount += suffix;
+
+        //拆开受影响的区域，保留其它区域原有的顺序
+        for (int i = rowFirstRun[low], end = rowFirstRun[high]; i < end; i++) {
+            if (runId[i] >= 0 && affected[runId[i]]) {
+                runId[i] = -1;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int id = labelId[i];
+            if (affected[id]) {
+                affected[id] = false;
+                freeId(id);
+            } else {
+                labelId[kept++] = id;
+            }
+        }
+        count = kept;
+        resolve(low, high);
+        return count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getConnectivity() {
+        return connectivity;
+    }
+
+    /**
+     * 区域中的网格数量
+     */
+    public int getCellCount(int label) {
+        return cellCount[labelId[label]];
+    }
+
+    /**
+     * 外接矩形的上边界（行，包含）
+     */
+    public int getTop(int label) {
+        return top[labelId[label]];
+    }
+
+    /**
+     * 外接矩形的左边界（列，包含）
+     */
+    public int getLeft(int label) {
+        return left[labelId[label]];
+    }
+
+    /**
+     * 外接矩形的下边界（行，不包含）
+     */
+    public int getBottom(int label) {
+        return bottom[labelId[label]];
+    }
+
+    /**
+     * 外接矩形的右边界（列，不包含）
+     */
+    public int getRight(int label) {
+        return right[labelId[label]];
+    }
+
+    /**
+     * 重心所在的行坐标，以网格为单位，第0行网格的中心为0.5
+     */
+    public double getCentroidRow(int label) {
+        int id = labelId[label];
+        return (double) sumRow[id] / cellCount[id] + 0.5;
+    }
+
+    /**
+     * 重心所在的列坐标，以网格为单位，第0列网格的中心为0.5
+     */
+    public double getCentroidColumn(int label) {
+        int id = labelId[label];
+        return (double) sumColumn[id] / cellCount[id] + 0.5;
+    }
+
+    /**
+     * 网格所属的区域编号
+     *
+     * @return 未填充或越界时返回{@code -1}
+     */
+    public int getLabel(int row, int column) {
+        if (row < 0 || row >= rows) {
+            return -1;
+        }
+        //同一行的区间按列有序，二分查找
+        int low = rowFirstRun[row], high = rowFirstRun[row + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (runEnd[mid] <= column) {
+                low = mid + 1;
+            } else if (runStart[mid] > column) {
+                high = mid - 1;
+            } else {
+                return idLabel[runId[mid]];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 把某个区域的网格填充到target中，target需与标记时的网格尺寸相同，原有内容保持不变
+     */
+    public void fillComponent(int label, GridMask target) {
+        int id = labelId[label];
+        for (int r = top[id]; r < bottom[id]; r++) {
+            for (int i = rowFirstRun[r]; i < rowFirstRun[r + 1]; i++) {
+                if (runId[i] == id) {
+                    target.setSpan(r, runStart[i], runEnd[i]);
+                }
+            }
+        }
+    }
+
+    private void extractRuns(GridMask mask, int row) {
+        int start = mask.nextSetBit(row, 0);
+        while (start >= 0) {
+            int end = mask.nextClearBit(row, start);
+            addRun(row, start, end);
+            start = mask.nextSetBit(row, end);
+        }
+    }
+
+    private void addRun(int row, int start, int end) {
+        if (runCount == runRow.length) {
+            growRuns(runCount * 2);
+        }
+        runRow[runCount] = row;
+        runStart[runCount] = start;
+        runEnd[runCount] = end;
+        runId[runCount] = -1;
+        runCount++;
+    }
+
+    private void growRuns(int capacity) {
+        if (runRow.length >= capacity) {
+            return;
+        }
+        capacity = Math.max(capacity, runRow.length * 2);
+        runRow = Arrays.copyOf(runRow, capacity);
+        runStart = Arrays.copyOf(runStart, capacity);
+        runEnd = Arrays.copyOf(runEnd, capacity);
+        runId = Arrays.copyOf(runId, capacity);
+    }
+
+    private void copyRuns(int[] fromRow, int[] fromStart, int[] fromEnd, int[] fromId, int src, int dst, int length) {
+        System.arraycopy(fromRow, src, runRow, dst, length);
+        System.arraycopy(fromStart, src, runStart, dst, length);
+        System.arraycopy(fromEnd, src, runEnd, dst, length);
+        System.arraycopy(fromId, src, runId, dst, length);
+    }
+
+    /**
+     * 合并[low, high)行中编号为{@code -1}的区间，为它们建立新的区域，再与保留的区域按顺序合并编号
+     */
+    private void resolve(int low, int high) {
+        parent = ensure(parent, runCount);
+        int first = rowFirstRun[low], last = rowFirstRun[high];
+        for (int i = first; i < last; i++) {
+            parent[i] = i;
+        }
+        //8连通时对角相邻也算重叠，相当于把上一行的区间向两边各扩展一列
+        int expand = connectivity == CONNECTIVITY_8 ? 1 : 0;
+        for (int r = low + 1; r < high; r++) {
+            int a = rowFirstRun[r - 1], aEnd = rowFirstRun[r];
+            int b = aEnd, bEnd = rowFirstRun[r + 1];
+            while (a < aEnd && b < bEnd) {
+                if (runId[a] < 0 && runId[b] < 0
+                        && runStart[a] - expand < runEnd[b] && runStart[b] < runEnd[a] + expand) {
+                    union(a, b);
+                }
+                if (runEnd[a] < runEnd[b]) {
+                    a++;
+                } else {
+                    b++;
+                }
+            }
+        }
+
+        newCount = 0;
+        for (int i = first; i < last; i++) {
+            if (runId[i] >= 0) {
+                continue;
+            }
+            int root = find(i);
+            if (root == i) {
+                //根节点总是编号最小的区间，即区域最上方一行中最左边的区间
+                runId[i] = newId(runRow[i], runStart[i]);
+            } else {
+                runId[i] = runId[root];
+            }
+            int id = runId[i];
+            int row = runRow[i];
+            int start = runStart[i];
+            int end = runEnd[i];
+            int length = end - start;
+            cellCount[id] += length;
+            bottom[id] = Math.max(bottom[id], row + 1);
+            left[id] = Math.min(left[id], start);
+            right[id] = Math.max(right[id], end);
+            sumRow[id] += (long) row * length;
+            sumColumn[id] += (long) (start + end - 1) * length / 2;
+        }
+        mergeOrder();
+    }
+
+    /**
+     * 保留的区域和新建的区域都已按顺序排列，归并后重新编号
+     */
+    private void mergeOrder() {
+        int total = count + newCount;
+        spareLabelId = ensure(spareLabelId, total);
+        int a = 0, b = 0;
+        for (int i = 0; i < total; i++) {
+            int id;
+            if (b == newCount || a < count && before(labelId[a], newIds[b])) {
+                id = labelId[a++];
+            } else {
+                id = newIds[b++];
+            }
+            spareLabelId[i] = id;
+            idLabel[id] = i;
+        }
+        int[] order = labelId;
+        labelId = spareLabelId;
+        spareLabelId = order;
+        count = total;
+    }
+
+    private boolean before(int a, int b) {
+        return top[a] < top[b] || top[a] == top[b] && firstStart[a] < firstStart[b];
+    }
+
+    private int newId(int row, int start) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = idCount++;
+            if (id == cellCount.length) {
+                int capacity = id * 2;
+                cellCount = Arrays.copyOf(cellCount, capacity);
+                top = Arrays.copyOf(top, capacity);
+                left = Arrays.copyOf(left, capacity);
+                bottom = Arrays.copyOf(bottom, capacity);
+                right = Arrays.copyOf(right, capacity);
+                sumRow = Arrays.copyOf(sumRow, capacity);
+                sumColumn = Arrays.copyOf(sumColumn, capacity);
+                firstStart = Arrays.copyOf(firstStart, capacity);
+                idLabel = Arrays.copyOf(idLabel, capacity);
+            }
+        }
+        cellCount[id] = 0;
+        top[id] = row;
+        left[id] = Integer.MAX_VALUE;
+        bottom[id] = 0;
+        right[id] = 0;
+        sumRow[id] = 0;
+        sumColumn[id] = 0;
+        firstStart[id] = start;
+        newIds = ensureCopy(newIds, newCount + 1);
+        newIds[newCount++] = id;
+        return id;
+    }
+
+    private void freeId(int id) {
+        freeIds = ensureCopy(freeIds, freeCount + 1);
+        freeIds[freeCount++] = id;
+    }
+
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    private static int[] ensure(int[] array, int capacity) {
+        return array.length >= capacity ? array : new int[Math.max(capacity, array.length * 2)];
+    }
+
+    private static int[] ensureCopy(int[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private static boolean[] ensure(boolean[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
@@ -0,0 +1,314 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+
+/**
+ * 轮廓提取：把网格中每个连通区域的外轮廓和孔洞转换为多边形
+ * <p>
+ * 轮廓沿网格边线走，顶点坐标以网格为单位（x为列，y为行，第row行第column列网格的左上角为(column, row)）。
+ * 行进方向始终保持填充的网格在右侧，因此在y轴向下的坐标系中外轮廓为顺时针，孔洞为逆时针。
+ * 两个填充网格只在对角相接时，按连通方式决定合并为一个轮廓还是分开。
+ * <p>
+ * 提取过程与网格数量成线性关系，只输出方向发生变化的顶点；可选按容差用Douglas-Peucker算法进一步简化。
+ */
+public class ContourTracer {
+
+    private static final int EAST = 0;
+    private static final int SOUTH = 1;
+    private static final int WEST = 2;
+    private static final int NORTH = 3;
+    /**
+     * 对角相接的顶点，有两条出边
+     */
+    private static final int SADDLE = 1 << 4;
+    private static final int DIRECTIONS = 0xF;
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+
+    private final int connectivity;
+
+    /**
+     * 每个网格顶点出发的边，低4位按方向各占一位，另有{@link #SADDLE}标记
+     */
+    private byte[] edges = new byte[0];
+
+    private int contourCount;
+    private int[] contourStart = new int[8];
+    private boolean[] holes = new boolean[8];
+    private int[] components = new int[8];
+    /**
+     * 所有轮廓的顶点 x0, y0, x1, y1 ... 连续存放
+     */
+    private int pointCount;
+    private float[] points = new float[64];
+
+    private float[] loop = new float[64];
+    private boolean[] keep = new boolean[32];
+    private int[] stack = new int[64];
+
+    public ContourTracer() {
+        this(ComponentLabeler.CONNECTIVITY_8);
+    }
+
+    /**
+     * @param connectivity {@link ComponentLabeler#CONNECTIVITY_4} 或 {@link ComponentLabeler#CONNECTIVITY_8}
+     */
+    public ContourTracer(int connectivity) {
+        if (connectivity != ComponentLabeler.CONNECTIVITY_4 && connectivity != ComponentLabeler.CONNECTIVITY_8) {
+            throw new IllegalArgumentException("connectivity = " + connectivity);
+        }
+        this.connectivity = connectivity;
+    }
+
+    /**
+     * 提取轮廓
+     *
+     * @param tolerance 简化容差（网格），为0时保留所有拐点
+     * @param labeler   用于确定每个轮廓所属的区域，需与本对象的连通方式相同且已标记过该网格，可以为null
+     * @return 轮廓数量
+     */
+    public int trace(GridMask mask, float tolerance, ComponentLabeler labeler) {
+        contourCount = 0;
+        pointCount = 0;
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        int stride = columns + 1;
+        int vertexCount = (rows + 1) * stride;
+        if (edges.length < vertexCount) {
+            edges = new byte[vertexCount];
+        } else {
+            Arrays.fill(edges, 0, vertexCount, (byte) 0);
+        }
+        //生成边：填充网格与未填充（或网格外）的网格相邻的每条边
+        for (int r = 0; r < rows; r++) {
+            int column = mask.nextSetBit(r, 0);
+            while (column >= 0) {
+                int end = mask.nextClearBit(r, column);
+                for (int c = column; c < end; c++) {
+                    int topLeft = r * stride + c;
+                    if (!mask.get(r - 1, c)) {
+                        edges[topLeft] |= 1 << EAST;
+                    }
+                    if (!mask.get(r + 1, c)) {
+                        edges[topLeft + stride + 1] |= 1 << WEST;
+                    }
+                }
+                edges[r * stride + end] |= 1 << SOUTH;
+                edges[(r + 1) * stride + column] |= 1 << NORTH;
+                column = mask.nextSetBit(r, end);
+            }
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int out = edges[vertex];
+            if (out != 0 && (out & (out - 1)) != 0) {
+                edges[vertex] |= SADDLE;
+            }
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            while ((edges[vertex] & DIRECTIONS) != 0) {
+                traceLoop(vertex, stride, tolerance, labeler);
+            }
+        }
+        return contourCount;
+    }
+
+    private void traceLoop(int start, int stride, float tolerance, ComponentLabeler labeler) {
+        int direction = Integer.numberOfTrailingZeros(edges[start] & DIRECTIONS);
+        int startDirection = direction;
+        int vertex = start;
+        int count = 0;
+        long area = 0;
+        int previous = -1;
+        while (true) {
+            edges[vertex] &= ~(1 << direction);
+            int x = vertex % stride;
+            int y = vertex / stride;
+            if (direction != previous) {
+                if ((count + 1) * 2 > loop.length) {
+                    loop = Arrays.copyOf(loop, loop.length * 2);
+                }
+                loop[count * 2] = x;
+                loop[count * 2 + 1] = y;
+                count++;
+            }
+            previous = direction;
+            //鞋带公式计算有向面积，y轴向下时顺时针为正
+            area += (long) x * (y + DY[direction]) - (long) (x + DX[direction]) * y;
+            vertex += DX[direction] + DY[direction] * stride;
+            int out = edges[vertex];
+            if ((out & SADDLE) != 0) {
+                //对角相接处有两条出边：8连通时左转连到对角的网格，4连通时右转绕回当前网格
+                direction = connectivity == ComponentLabeler.CONNECTIVITY_8 ? (direction + 3) & 3 : (direction + 1) & 3;
+                if ((out & (1 << direction)) == 0) {
+                    break;
+                }
+            } else if ((out & DIRECTIONS) == 0) {
+                break;
+            } else {
+                direction = Integer.numberOfTrailingZeros(out & DIRECTIONS);
+            }
+        }
+        if (previous == startDirection && count > 1) {
+            //回到起点时方向未变，起点不是拐点
+            System.arraycopy(loop, 2, loop, 0, (count - 1) * 2);
+            count--;
+        }
+        int component = -1;
+        if (labeler != null) {
+            //起始边右侧的网格
+            int x = start % stride;
+            int y = start / stride;
+            int row = startDirection == EAST || startDirection == SOUTH ? y : y - 1;
+            int column = startDirection == EAST || startDirection == NORTH ? x : x - 1;
+            component = labeler.getLabel(row, column);
+        }
+        if (tolerance > 0) {
+            count = simplify(count, tolerance);
+        }
+        addContour(count, area < 0, component);
+    }
+
+    private void addContour(int count, boolean hole, int component) {
+        if (contourCount + 1 >= contourStart.length) {
+            contourStart = Arrays.copyOf(contourStart, contourStart.length * 2);
+            holes = Arrays.copyOf(holes, holes.length * 2);
+            components = Arrays.copyOf(components, components.length * 2);
+        }
+        if ((pointCount + count) * 2 > points.length) {
+            points = Arrays.copyOf(points, Math.max(points.length * 2, (pointCount + count) * 2));
+        }
+        System.arraycopy(loop, 0, points, pointCount * 2, count * 2);
+        contourStart[contourCount] = pointCount;
+        holes[contourCount] = hole;
+        components[contourCount] = component;
+        contourCount++;
+        pointCount += count;
+        contourStart[contourCount] = pointCount;
+    }
+
+    /**
+     * Douglas-Peucker简化闭合折线，以第0个点和离它最远的点为两端分成两段分别简化
+     *
+     * @return 简化后的点数
+     */
+    private int simplify(int count, float tolerance) {
+        if (count <= 4) {
+            return count;
+        }
+        if (keep.length < count + 1) {
+            keep = new boolean[count + 1];
+        }
+        Arrays.fill(keep, 0, count + 1, false);
+        int far = 0;
+        float farDistance = -1;
+        for (int i = 1; i < count; i++) {
+            float dx = loop[i * 2] - loop[0];
+            float dy = loop[i * 2 + 1] - loop[1];
+            float distance = dx * dx + dy * dy;
+            if (distance > farDistance) {
+                farDistance = distance;
+                far = i;
+            }
+        }
+        keep[0] = keep[far] = true;
+        //索引count表示回到第0个点
+        int top = 0;
+        stack = ensure(stack, 4);
+        stack[top++] = 0;
+        stack[top++] = far;
+        stack[top++] = far;
+        stack[top++] = count;
+        float squaredTolerance = tolerance * tolerance;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            float ax = loop[first * 2], ay = loop[first * 2 + 1];
+            int lastIndex = last == count ? 0 : last;
+            float bx = loop[lastIndex * 2], by = loop[lastIndex * 2 + 1];
+            float abx = bx - ax, aby = by - ay;
+            float length = abx * abx + aby * aby;
+            int index = -1;
+            float max = squaredTolerance;
+            for (int i = first + 1; i < last; i++) {
+                float px = loop[i * 2] - ax, py = loop[i * 2 + 1] - ay;
+                float cross = abx * py - aby * px;
+                float distance = length == 0 ? px * px + py * py : cross * cross / length;
+                if (distance > max) {
+                    max = distance;
+                    index = i;
+                }
+            }
+            if (index >= 0) {
+                keep[index] = true;
+                stack = ensure(stack, top + 4);
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                loop[kept * 2] = loop[i * 2];
+                loop[kept * 2 + 1] = loop[i * 2 + 1];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    private static int[] ensure(int[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    public int getContourCount() {
+        return contourCount;
+    }
+
+    /**
+     * 是否为孔洞
+     */
+    public boolean isHole(int contour) {
+        return holes[contour];
+    }
+
+    /**
+     * 轮廓所属的区域编号，trace时未传入labeler则为{@code -1}
+     */
+    public int getComponent(int contour) {
+        return components[contour];
+    }
+
+    public int getPointCount(int contour) {
+        return contourStart[contour + 1] - contourStart[contour];
+    }
+
+    /**
+     * 第index个顶点的x坐标（列）
+     */
+    public float getX(int contour, int index) {
+        return points[(contourStart[contour] + index) * 2];
+    }
+
+    /**
+     * 第index个顶点的y坐标（行）
+     */
+    public float getY(int contour, int index) {
+        return points[(contourStart[contour] + index) * 2 + 1];
+    }
+
+    /**
+     * 转换为多边形，坐标乘以网格的宽高。传入View中网格的宽高得到View坐标，传入 1/列数、1/行数 得到归一化坐标
+     */
+    public XyPolygon getPolygon(int contour, float cellWidth, float cellHeight) {
+        int count = getPointCount(contour);
+        float[] coords = new float[count * 2];
+        int offset = contourStart[contour] * 2;
+        for (int i = 0; i < count; i++) {
+            coords[i * 2] = points[offset + i * 2] * cellWidth;
+            coords[i * 2 + 1] = points[offset + i * 2 + 1] * cellHeight;
+        }
+        return new XyPolygon(coords);
+    }
+}
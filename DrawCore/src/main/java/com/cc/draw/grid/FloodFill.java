@@ -0,0 +1,150 @@
+package com.cc.draw.grid;
+
+/**
+ * 扫描线种子填充：从一个网格出发，把与它状态相同且连通的区域整体翻转
+ * <p>
+ * 点击未填充的网格时填充它所在的空白区域，点击已填充的网格时擦除它所在的区域。
+ * 每次从栈中取出一个种子，沿该行向左右扩展成区间并整段写入，再在上下两行的对应范围内按区间查找新的种子，
+ * 查找和写入都以long为单位，耗时与区间数量乘以每行的long数成正比。
+ * 已翻转的网格状态不再与种子相同，因此不需要额外的访问标记。
+ */
+public class FloodFill {
+
+    private final int connectivity;
+
+    /**
+     * 待处理的种子，依次为row, column
+     */
+    private int[] stack = new int[64];
+
+    private int top, left, bottom, right;
+
+    public FloodFill() {
+        this(ComponentLabeler.CONNECTIVITY_4);
+    }
+
+    /**
+     * @param connectivity {@link ComponentLabeler#CONNECTIVITY_4} 或 {@link ComponentLabeler#CONNECTIVITY_8}，
+     *                     8连通时区域可以穿过对角相接的缝隙
+     */
+    public FloodFill(int connectivity) {
+        if (connectivity != ComponentLabeler.CONNECTIVITY_4 && connectivity != ComponentLabeler.CONNECTIVITY_8) {
+            throw new IllegalArgumentException("connectivity = " + connectivity);
+        }
+        this.connectivity = connectivity;
+    }
+
+    public int getConnectivity() {
+        return connectivity;
+    }
+
+    /**
+     * 翻转(row, column)所在的连通区域
+     *
+     * @return 发生变化的网格数量，越界时为0
+     */
+    public int fill(GridMask mask, int row, int column) {
+        top = left = bottom = right = 0;
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return 0;
+        }
+        boolean region = mask.get(row, column);
+        int expand = connectivity == ComponentLabeler.CONNECTIVITY_8 ? 1 : 0;
+        top = left = Integer.MAX_VALUE;
+        int count = 0;
+        int size = 0;
+        stack[size++] = row;
+        stack[size++] = column;
+        while (size > 0) {
+            int c = stack[--size];
+            int r = stack[--size];
+            if (mask.get(r, c) != region) {
+                //已被其它区间处理过
+                continue;
+            }
+            int from = previousOther(mask, r, c, region) + 1;
+            int to = nextOther(mask, r, c, region);
+            mask.setSpan(r, from, to, !region);
+            count += to - from;
+            top = Math.min(top, r);
+            bottom = Math.max(bottom, r + 1);
+            left = Math.min(left, from);
+            right = Math.max(right, to);
+            int scanFrom = Math.max(from - expand, 0);
+            int scanTo = Math.min(to + expand, columns);
+            for (int neighbor = r - 1; neighbor <= r + 1; neighbor += 2) {
+                if (neighbor < 0 || neighbor >= rows) {
+                    continue;
+                }
+                //相邻行的范围内每个同状态的区间压入一个种子
+                int start = nextSame(mask, neighbor, scanFrom, region);
+                while (start < scanTo) {
+                    if (size + 2 > stack.length) {
+                        int[] newStack = new int[stack.length << 1];
+                        System.arraycopy(stack, 0, newStack, 0, size);
+                        stack = newStack;
+                    }
+                    stack[size++] = neighbor;
+                    stack[size++] = start;
+                    start = nextSame(mask, neighbor, nextOther(mask, neighbor, start, region), region);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 上次填充范围的上边界（行，包含）
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * 上次填充范围的左边界（列，包含）
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * 上次填充范围的下边界（行，不包含）
+     */
+    public int getBottom() {
+        return bottom;
+    }
+
+    /**
+     * 上次填充范围的右边界（列，不包含）
+     */
+    public int getRight() {
+        return right;
+    }
+
+    /**
+     * 从column开始向右第一个状态为region的网格，没有则返回列数
+     */
+    private static int nextSame(GridMask mask, int row, int column, boolean region) {
+        if (region) {
+            int next = mask.nextSetBit(row, column);
+            return next < 0 ? mask.getColumns() : next;
+        }
+        return mask.nextClearBit(row, column);
+    }
+
+    /**
+     * 从column开始向右第一个状态不为region的网格，没有则返回列数
+     */
+    private static int nextOther(GridMask mask, int row, int column, boolean region) {
+        return nextSame(mask, row, column, !region);
+    }
+
+    /**
+     * 从column开始向左第一个状态不为region的网格，没有则返回{@code -1}
+     */
+    private static int previousOther(GridMask mask, int row, int column, boolean region) {
+        return region ? mask.previousClearBit(row, column) : mask.previousSetBit(row, column);
+    }
+}
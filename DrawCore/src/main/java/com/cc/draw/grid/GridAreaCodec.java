@@ -0,0 +1,463 @@
+package com.cc.draw.grid;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 填充区域的编解码
+ * <p>
+ * 二进制格式（版本1）：
+ * <pre>
+ * byte 0      魔数 'G'
+ * byte 1      版本号 1
+ * byte 2      数据格式 {@link #FORMAT_PACKED} 或 {@link #FORMAT_RLE}
+ * varint      行数
+ * varint      列数
+ * payload     FORMAT_PACKED：按行优先排列的位流，第i个网格位于第 i / 8 个字节的第 i % 8 位（低位在前），末尾不足一字节补0
+ *             FORMAT_RLE：按行优先排列的游程长度（varint），从未填充开始交替，游程可以跨行
+ * </pre>
+ * varint 为无符号 LEB128 编码。文本格式为二进制格式的 Base64（标准字母表，带填充）。
+ * <p>
+ * 旧格式：每行一个十进制数，二进制最高位对应第0列，行之间以逗号分隔，最多支持63列。
+ */
+public final class GridAreaCodec {
+
+    /**
+     * 位图格式
+     */
+    public static final int FORMAT_PACKED = 0;
+    /**
+     * 游程格式，适合填充稀疏的区域
+     */
+    public static final int FORMAT_RLE = 1;
+
+    private static final byte MAGIC = 'G';
+    private static final byte VERSION = 1;
+    private static final int MAX_SIZE = 0xFFFF;
+    /**
+     * 解码时允许的最大网格数量，防止损坏或恶意的数据在分配网格时耗尽内存
+     */
+    private static final long MAX_CELLS = 1L << 24;
+    private static final int LEGACY_MAX_COLUMNS = 63;
+
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int[] BASE64_INDEX = new int[128];
+
+    static {
+        java.util.Arrays.fill(BASE64_INDEX, -1);
+        for (int i = 0; i < BASE64.length; i++) {
+            BASE64_INDEX[BASE64[i]] = i;
+        }
+    }
+
+    private GridAreaCodec() {
+    }
+
+    /**
+     * 编码为二进制格式，自动选择位图和游程中较小的一种
+     */
+    public static byte[] encode(GridMask mask) {
+        //先只计算游程格式的长度，只编码一次
+        int rleBytes = writeRle(null, mask);
+        int packedBytes = packedBytes(mask.getRows(), mask.getColumns());
+        return encode(mask, rleBytes < packedBytes ? FORMAT_RLE : FORMAT_PACKED);
+    }
+
+    /**
+     * 按指定格式编码为二进制格式
+     *
+     * @param format {@link #FORMAT_PACKED} 或 {@link #FORMAT_RLE}
+     */
+    public static byte[] encode(GridMask mask, int format) {
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + (format == FORMAT_RLE ? 64 : packedBytes(rows, columns)));
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(format);
+        writeVarint(out, rows);
+        writeVarint(out, columns);
+        if (format == FORMAT_PACKED) {
+            writePacked(out, mask);
+        } else if (format == FORMAT_RLE) {
+            writeRle(out, mask);
+        } else {
+            throw new IllegalArgumentException("unknown format: " + format);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码二进制格式
+     */
+    public static GridMask decode(byte[] data) {
+        int[] header = readHeader(data);
+        GridMask mask = new GridMask(header[1], header[2]);
+        readPayload(data, header, mask);
+        return mask;
+    }
+
+    /**
+     * 解码二进制格式到已有的网格中，网格的行列数必须与数据一致，原有内容会被覆盖
+     */
+    public static void decode(byte[] data, GridMask target) {
+        int[] header = readHeader(data);
+        if (header[1] != target.getRows() || header[2] != target.getColumns()) {
+            throw new IllegalArgumentException("size mismatch: " + header[1] + "x" + header[2]
+                    + " != " + target.getRows() + "x" + target.getColumns());
+        }
+        target.clearAll();
+        readPayload(data, header, target);
+    }
+
+    /**
+     * 编码为文本格式
+     */
+    public static String toText(GridMask mask) {
+        return toBase64(encode(mask));
+    }
+
+    /**
+     * 解码文本格式，同时兼容旧格式
+     *
+     * @param text    文本格式或旧格式的字符串
+     * @param columns 旧格式不包含列数，需要指定；文本格式忽略该参数
+     */
+    public static GridMask fromText(String text, int columns) {
+        if (isLegacy(text)) {
+            return fromLegacy(text, columns);
+        }
+        return decode(fromBase64(text));
+    }
+
+    /**
+     * 是否为旧格式（只包含数字、逗号和空白）
+     */
+    public static boolean isLegacy(String text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != ',' && !Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 编码为旧格式，最多支持63列
+     */
+    public static String toLegacy(GridMask mask) {
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        if (columns > LEGACY_MAX_COLUMNS) {
+            throw new IllegalArgumentException("legacy format supports at most " + LEGACY_MAX_COLUMNS
+                    + " columns: " + columns);
+        }
+        StringBuilder result = new StringBuilder(rows * 8);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            //第0列在最低位，反转后右移使第0列成为最高位
+            long word = columns == 0 ? 0 : mask.getWord(i, 0);
+            result.append(columns == 0 ? 0 : Long.reverse(word) >>> (64 - columns));
+        }
+        return result.toString();
+    }
+
+    /**
+     * 解码旧格式，行数由逗号分隔的数量决定
+     */
+    public static GridMask fromLegacy(String legacy, int columns) {
+        if (columns > LEGACY_MAX_COLUMNS) {
+            throw new IllegalArgumentException("legacy format supports at most " + LEGACY_MAX_COLUMNS
+                    + " columns: " + columns);
+        }
+        String trimmed = legacy.trim();
+        if (trimmed.isEmpty()) {
+            return new GridMask(0, columns);
+        }
+        String[] split = trimmed.split(",");
+        GridMask mask = new GridMask(split.length, columns);
+        for (int i = 0; i < split.length; i++) {
+            long value = Long.parseLong(split[i].trim());
+            if (columns > 0) {
+                mask.words[i * mask.getWordsPerRow()] = Long.reverse(value << (64 - columns)) & (-1L >>> -columns);
+            }
+        }
+        mask.touch();
+        return mask;
+    }
+
+    private static int packedBytes(int rows, int columns) {
+        return (int) (((long) rows * columns + 7) >>> 3);
+    }
+
+    private static void writePacked(ByteArrayOutputStream out, GridMask mask) {
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        int wordsPerRow = mask.getWordsPerRow();
+        long acc = 0;
+        int accBits = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int bits = Math.min(64, columns - (w << 6));
+                long value = mask.getWord(r, w);
+                //把bits位拼接到acc后面，满64位写出
+                acc |= value << accBits;
+                if (accBits + bits >= 64) {
+                    writeLong(out, acc, 8);
+                    int used = 64 - accBits;
+                    acc = used == 64 ? 0 : value >>> used;
+                    accBits = accBits + bits - 64;
+                } else {
+                    accBits += bits;
+                }
+            }
+        }
+        if (accBits > 0) {
+            writeLong(out, acc, (accBits + 7) >>> 3);
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >>> (i << 3)));
+        }
+    }
+
+    /**
+     * 写入游程，out为null时只计算长度
+     *
+     * @return 写入的字节数
+     */
+    private static int writeRle(ByteArrayOutputStream out, GridMask mask) {
+        int size = 0;
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        boolean filled = false;
+        int run = 0;
+        for (int r = 0; r < rows; r++) {
+            int position = 0;
+            while (position < columns) {
+                int next;
+                if (filled) {
+                    next = mask.nextClearBit(r, position);
+                } else {
+                    next = mask.nextSetBit(r, position);
+                    if (next < 0) {
+                        next = columns;
+                    }
+                }
+                run += next - position;
+                if (next < columns) {
+                    size += writeVarint(out, run);
+                    run = 0;
+                    filled = !filled;
+                }
+                position = next;
+            }
+        }
+        if (run > 0) {
+            size += writeVarint(out, run);
+        }
+        return size;
+    }
+
+    /**
+     * 解析并校验头部，在分配网格之前拒绝未知的格式、过大的尺寸和长度不足的位图数据
+     *
+     * @return {格式, 行数, 列数, payload起始位置}
+     */
+    private static int[] readHeader(byte[] data) {
+        if (data == null || data.length < 5 || data[0] != MAGIC) {
+            throw new IllegalArgumentException("not a grid area");
+        }
+        if (data[1] != VERSION) {
+            throw new IllegalArgumentException("unsupported version: " + data[1]);
+        }
+        int format = data[2];
+        if (format != FORMAT_PACKED && format != FORMAT_RLE) {
+            throw new IllegalArgumentException("unknown format: " + format);
+        }
+        int[] position = {3};
+        int rows = readVarint(data, position);
+        int columns = readVarint(data, position);
+        if (rows > MAX_SIZE || columns > MAX_SIZE || (long) rows * columns > MAX_CELLS) {
+            throw new IllegalArgumentException("size too large: " + rows + "x" + columns);
+        }
+        if (format == FORMAT_PACKED && data.length - position[0] < packedBytes(rows, columns)) {
+            throw new IllegalArgumentException("truncated data");
+        }
+        return new int[]{format, rows, columns, position[0]};
+    }
+
+    private static void readPayload(byte[] data, int[] header, GridMask mask) {
+        if (header[0] == FORMAT_PACKED) {
+            readPacked(data, header[3], mask);
+        } else {
+            readRle(data, header[3], mask);
+        }
+        mask.touch();
+    }
+
+    private static void readPacked(byte[] data, int offset, GridMask mask) {
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        int wordsPerRow = mask.getWordsPerRow();
+        long bitPosition = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int bits = Math.min(64, columns - (w << 6));
+                mask.words[r * wordsPerRow + w] = readBits(data, offset, bitPosition, bits);
+                bitPosition += bits;
+            }
+        }
+    }
+
+    private static long readBits(byte[] data, int offset, long bitPosition, int bits) {
+        long result = 0;
+        int got = 0;
+        while (got < bits) {
+            int index = offset + (int) (bitPosition >>> 3);
+            int bitOffset = (int) (bitPosition & 7);
+            int take = Math.min(8 - bitOffset, bits - got);
+            long value = ((data[index] & 0xFF) >>> bitOffset) & ((1 << take) - 1);
+            result |= value << got;
+            got += take;
+            bitPosition += take;
+        }
+        return result;
+    }
+
+    private static void readRle(byte[] data, int offset, GridMask mask) {
+        int columns = mask.getColumns();
+        long total = (long) mask.getRows() * columns;
+        int[] position = {offset};
+        long cell = 0;
+        boolean filled = false;
+        while (cell < total && position[0] < data.length) {
+            int run = readVarint(data, position);
+            if (cell + run > total) {
+                throw new IllegalArgumentException("run exceeds grid");
+            }
+            if (filled) {
+                //游程可能跨行，按行拆分后整段写入
+                long end = cell + run;
+                while (cell < end) {
+                    int row = (int) (cell / columns);
+                    int from = (int) (cell % columns);
+                    int to = (int) Math.min(columns, from + (end - cell));
+                    mask.setSpan(row, from, to);
+                    cell += to - from;
+                }
+            } else {
+                cell += run;
+            }
+            filled = !filled;
+        }
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * @param out 为null时只计算长度
+     * @return 字节数
+     */
+    private static int writeVarint(ByteArrayOutputStream out, int value) {
+        if (out == null) {
+            return varintSize(value);
+        }
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+            size++;
+        }
+        out.write(value);
+        return size;
+    }
+
+    private static int readVarint(byte[] data, int[] position) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("truncated data");
+            }
+            int b = data[position[0]++];
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    throw new IllegalArgumentException("varint overflow");
+                }
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("varint overflow");
+    }
+
+    /**
+     * Base64编码（标准字母表，带填充）
+     */
+    static String toBase64(byte[] data) {
+        char[] out = new char[(data.length + 2) / 3 * 4];
+        int o = 0;
+        int i = 0;
+        for (; i + 2 < data.length; i += 3) {
+            int v = (data[i] & 0xFF) << 16 | (data[i + 1] & 0xFF) << 8 | (data[i + 2] & 0xFF);
+            out[o++] = BASE64[v >>> 18];
+            out[o++] = BASE64[(v >>> 12) & 0x3F];
+            out[o++] = BASE64[(v >>> 6) & 0x3F];
+            out[o++] = BASE64[v & 0x3F];
+        }
+        int remaining = data.length - i;
+        if (remaining > 0) {
+            int v = (data[i] & 0xFF) << 16 | (remaining == 2 ? (data[i + 1] & 0xFF) << 8 : 0);
+            out[o++] = BASE64[v >>> 18];
+            out[o++] = BASE64[(v >>> 12) & 0x3F];
+            out[o++] = remaining == 2 ? BASE64[(v >>> 6) & 0x3F] : '=';
+            out[o] = '=';
+        }
+        return new String(out);
+    }
+
+    /**
+     * Base64解码，忽略空白字符
+     */
+    static byte[] fromBase64(String text) {
+        byte[] out = new byte[text.length() * 3 / 4];
+        int o = 0;
+        int v = 0;
+        int bits = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int index = c < 128 ? BASE64_INDEX[c] : -1;
+            if (index < 0) {
+                throw new IllegalArgumentException("illegal base64 character: " + c);
+            }
+            v = (v << 6) | index;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[o++] = (byte) (v >>> bits);
+            }
+        }
+        if (o == out.length) {
+            return out;
+        }
+        byte[] result = new byte[o];
+        System.arraycopy(out, 0, result, 0, o);
+        return result;
+    }
+}
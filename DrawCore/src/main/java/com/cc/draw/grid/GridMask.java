@@ -0,0 +1,569 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+
+/**
+ * 网格填充状态模型，按位存储每个网格是否填充
+ * <p>
+ * 存储布局：每行占用 {@link #getWordsPerRow()} 个 long，第 row 行第 column 列对应
+ * {@code words[row * wordsPerRow + (column >>> 6)]} 的第 {@code column & 63} 位（低位在前）。
+ * 每行最后一个 long 中超出列数的高位始终为0。{@link #resize(int, int)} 缩小尺寸时会复用原数组，
+ * 此时数组长度可能大于 {@code rows * wordsPerRow}，多出的部分始终为0。
+ * <p>
+ * 越界的行列会被忽略（与原先 native fillRect 的行为一致），区间参数均为左闭右开。
+ */
+public class GridMask {
+
+    /**
+     * 重采样策略：目标网格与任意已填充的源网格有重叠即填充
+     */
+    public static final int RESAMPLE_ANY = 0;
+    /**
+     * 重采样策略：目标网格中已填充部分的面积不少于一半时填充
+     */
+    public static final int RESAMPLE_MAJORITY = 1;
+    /**
+     * 重采样策略：目标网格完全被已填充的源网格覆盖时才填充
+     */
+    public static final int RESAMPLE_ALL = 2;
+
+    private static final int OP_SET = 0;
+    private static final int OP_CLEAR = 1;
+    private static final int OP_TOGGLE = 2;
+
+    /**
+     * 行数和列数
+     */
+    private int rows, columns;
+    /**
+     * 每行占用的long个数
+     */
+    private int wordsPerRow;
+    /**
+     * 按行连续存放的位数据
+     */
+    long[] words;
+    /**
+     * 修改计数，每次修改后递增，用于判断缓存是否失效
+     */
+    private int version;
+
+    public GridMask(int rows, int columns) {
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("rows = " + rows + ", columns = " + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = wordsFor(columns);
+        this.words = new long[rows * wordsPerRow];
+    }
+
+    /**
+     * 复制构造
+     *
+     * @param other
+     */
+    public GridMask(GridMask other) {
+        this.rows = other.rows;
+        this.columns = other.columns;
+        this.wordsPerRow = other.wordsPerRow;
+        this.words = Arrays.copyOf(other.words, other.rows * other.wordsPerRow);
+    }
+
+    /**
+     * 重新设置行列数并清空所有网格，现有数组容量足够时直接复用，不重新分配
+     *
+     * @return 是否复用了原有存储
+     */
+    public boolean resize(int rows, int columns) {
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("rows = " + rows + ", columns = " + columns);
+        }
+        int wordsPerRow = wordsFor(columns);
+        boolean reused = (long) rows * wordsPerRow <= words.length;
+        if (reused) {
+            Arrays.fill(words, 0, this.rows * this.wordsPerRow, 0L);
+        } else {
+            words = new long[rows * wordsPerRow];
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = wordsPerRow;
+        version++;
+        return reused;
+    }
+
+    static int wordsFor(int columns) {
+        return (columns + 63) >>> 6;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * 获取修改计数，内容变化后该值一定不同
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * 直接修改{@link #words}后需调用此方法
+     */
+    void touch() {
+        version++;
+    }
+
+    /**
+     * 获取某一行的第index个long
+     */
+    public long getWord(int row, int index) {
+        return words[row * wordsPerRow + index];
+    }
+
+    /**
+     * 网格是否填充
+     */
+    public boolean get(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return false;
+        }
+        return (words[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    /**
+     * 设置网格的填充状态
+     */
+    public void set(int row, int column, boolean fill) {
+        if (fill) {
+            set(row, column);
+        } else {
+            clear(row, column);
+        }
+    }
+
+    /**
+     * 填充网格
+     */
+    public void set(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return;
+        }
+        words[row * wordsPerRow + (column >>> 6)] |= 1L << column;
+        version++;
+    }
+
+    /**
+     * 清除网格
+     */
+    public void clear(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return;
+        }
+        words[row * wordsPerRow + (column >>> 6)] &= ~(1L << column);
+        version++;
+    }
+
+    /**
+     * 反转网格
+     */
+    public void toggle(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return;
+        }
+        words[row * wordsPerRow + (column >>> 6)] ^= 1L << column;
+        version++;
+    }
+
+    /**
+     * 设置一行中[fromColumn, toColumn)的填充状态
+     */
+    public void setSpan(int row, int fromColumn, int toColumn, boolean fill) {
+        applySpan(row, fromColumn, toColumn, fill ? OP_SET : OP_CLEAR);
+    }
+
+    public void setSpan(int row, int fromColumn, int toColumn) {
+        applySpan(row, fromColumn, toColumn, OP_SET);
+    }
+
+    public void clearSpan(int row, int fromColumn, int toColumn) {
+        applySpan(row, fromColumn, toColumn, OP_CLEAR);
+    }
+
+    public void toggleSpan(int row, int fromColumn, int toColumn) {
+        applySpan(row, fromColumn, toColumn, OP_TOGGLE);
+    }
+
+    /**
+     * 设置矩形区域[top, bottom) x [left, right)的填充状态
+     */
+    public void setRect(int top, int left, int bottom, int right, boolean fill) {
+        applyRect(top, left, bottom, right, fill ? OP_SET : OP_CLEAR);
+    }
+
+    public void setRect(int top, int left, int bottom, int right) {
+        applyRect(top, left, bottom, right, OP_SET);
+    }
+
+    public void clearRect(int top, int left, int bottom, int right) {
+        applyRect(top, left, bottom, right, OP_CLEAR);
+    }
+
+    public void toggleRect(int top, int left, int bottom, int right) {
+        applyRect(top, left, bottom, right, OP_TOGGLE);
+    }
+
+    /**
+     * 清空所有网格
+     */
+    public void clearAll() {
+        Arrays.fill(words, 0, rows * wordsPerRow, 0L);
+        version++;
+    }
+
+    /**
+     * 填充所有网格
+     */
+    public void setAll() {
+        applyRect(0, 0, rows, columns, OP_SET);
+    }
+
+    /**
+     * 是否没有任何网格被填充
+     */
+    public boolean isEmpty() {
+        int size = rows * wordsPerRow;
+        for (int i = 0; i < size; i++) {
+            if (words[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 填充的网格数量
+     */
+    public int cardinality() {
+        int count = 0;
+        int size = rows * wordsPerRow;
+        for (int i = 0; i < size; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    /**
+     * 某一行填充的网格数量
+     */
+    public int cardinality(int row) {
+        if (row < 0 || row >= rows) {
+            return 0;
+        }
+        int count = 0;
+        int base = row * wordsPerRow;
+        for (int i = 0; i < wordsPerRow; i++) {
+            count += Long.bitCount(words[base + i]);
+        }
+        return count;
+    }
+
+    /**
+     * 一行中[fromColumn, toColumn)是否全部填充，空区间返回true
+     */
+    public boolean isSpanSet(int row, int fromColumn, int toColumn) {
+        if (row < 0 || row >= rows || fromColumn < 0 || toColumn > columns) {
+            return false;
+        }
+        if (fromColumn >= toColumn) {
+            return true;
+        }
+        int base = row * wordsPerRow;
+        int firstWord = fromColumn >>> 6;
+        int lastWord = (toColumn - 1) >>> 6;
+        long firstMask = -1L << fromColumn;
+        long lastMask = -1L >>> -toColumn;
+        if (firstWord == lastWord) {
+            long mask = firstMask & lastMask;
+            return (words[base + firstWord] & mask) == mask;
+        }
+        if ((words[base + firstWord] & firstMask) != firstMask) {
+            return false;
+        }
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            if (words[base + i] != -1L) {
+                return false;
+            }
+        }
+        return (words[base + lastWord] & lastMask) == lastMask;
+    }
+
+    /**
+     * 从fromColumn开始查找一行中下一个填充的网格
+     *
+     * @return 列索引，没有则返回{@code -1}
+     */
+    public int nextSetBit(int row, int fromColumn) {
+        if (row < 0 || row >= rows || fromColumn >= columns) {
+            return -1;
+        }
+        fromColumn = Math.max(fromColumn, 0);
+        int base = row * wordsPerRow;
+        int index = fromColumn >>> 6;
+        long word = words[base + index] & (-1L << fromColumn);
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == wordsPerRow) {
+                return -1;
+            }
+            word = words[base + index];
+        }
+    }
+
+    /**
+     * 从fromColumn开始查找一行中下一个未填充的网格
+     *
+     * @return 列索引，没有则返回列数
+     */
+    public int nextClearBit(int row, int fromColumn) {
+        if (row < 0 || row >= rows || fromColumn >= columns) {
+            return columns;
+        }
+        fromColumn = Math.max(fromColumn, 0);
+        int base = row * wordsPerRow;
+        int index = fromColumn >>> 6;
+        long word = ~words[base + index] & (-1L << fromColumn);
+        while (true) {
+            if (word != 0) {
+                return Math.min((index << 6) + Long.numberOfTrailingZeros(word), columns);
+            }
+            if (++index == wordsPerRow) {
+                return columns;
+            }
+            word = ~words[base + index];
+        }
+    }
+
+    /**
+     * 从fromColumn开始向左查找一行中上一个填充的网格
+     *
+     * @return 列索引，没有则返回{@code -1}
+     */
+    public int previousSetBit(int row, int fromColumn) {
+        if (row < 0 || row >= rows || fromColumn < 0 || columns == 0) {
+            return -1;
+        }
+        fromColumn = Math.min(fromColumn, columns - 1);
+        int base = row * wordsPerRow;
+        int index = fromColumn >>> 6;
+        long word = words[base + index] & (-1L >>> (63 - (fromColumn & 63)));
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (index-- == 0) {
+                return -1;
+            }
+            word = words[base + index];
+        }
+    }
+
+    /**
+     * 从fromColumn开始向左查找一行中上一个未填充的网格，网格右侧之外视为未填充
+     *
+     * @return 列索引，没有则返回{@code -1}
+     */
+    public int previousClearBit(int row, int fromColumn) {
+        if (row < 0 || row >= rows || fromColumn < 0) {
+            return -1;
+        }
+        if (fromColumn >= columns) {
+            return fromColumn;
+        }
+        int base = row * wordsPerRow;
+        int index = fromColumn >>> 6;
+        long word = ~words[base + index] & (-1L >>> (63 - (fromColumn & 63)));
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (index-- == 0) {
+                return -1;
+            }
+            word = ~words[base + index];
+        }
+    }
+
+    /**
+     * 复制另一个尺寸相同的网格的填充状态
+     */
+    public void copyFrom(GridMask other) {
+        if (other.rows != rows || other.columns != columns) {
+            throw new IllegalArgumentException("size mismatch: " + other.rows + "x" + other.columns
+                    + " != " + rows + "x" + columns);
+        }
+        System.arraycopy(other.words, 0, words, 0, rows * wordsPerRow);
+        version++;
+    }
+
+    /**
+     * 按新的行列数重采样，两者覆盖同一块区域
+     *
+     * @param policy {@link #RESAMPLE_ANY}、{@link #RESAMPLE_MAJORITY} 或 {@link #RESAMPLE_ALL}
+     * @return 新的网格
+     */
+    public GridMask resample(int rows, int columns, int policy) {
+        GridMask target = new GridMask(rows, columns);
+        resampleTo(target, policy);
+        return target;
+    }
+
+    /**
+     * 重采样到已有的网格，目标网格原有内容会被清空，批量转换时可复用同一个目标网格
+     *
+     * @param policy {@link #RESAMPLE_ANY}、{@link #RESAMPLE_MAJORITY} 或 {@link #RESAMPLE_ALL}
+     */
+    public void resampleTo(GridMask target, int policy) {
+        if (policy != RESAMPLE_ANY && policy != RESAMPLE_MAJORITY && policy != RESAMPLE_ALL) {
+            throw new IllegalArgumentException("policy = " + policy);
+        }
+        if (target == this) {
+            throw new IllegalArgumentException("target must not be this mask");
+        }
+        MaskResampler.resample(this, target, policy);
+    }
+
+    /**
+     * 填充另一个网格中已填充的网格，两者尺寸不同时按左上角对齐，只处理重叠部分
+     */
+    public void or(GridMask other) {
+        int rowCount = Math.min(rows, other.rows);
+        int wordCount = Math.min(wordsPerRow, other.wordsPerRow);
+        long lastMask = -1L >>> -columns;
+        for (int r = 0; r < rowCount; r++) {
+            int base = r * wordsPerRow;
+            int otherBase = r * other.wordsPerRow;
+            for (int w = 0; w < wordCount; w++) {
+                long value = other.words[otherBase + w];
+                if (w == wordsPerRow - 1) {
+                    value &= lastMask;
+                }
+                words[base + w] |= value;
+            }
+        }
+        version++;
+    }
+
+    /**
+     * 清除另一个网格中已填充的网格，两者尺寸不同时按左上角对齐，只处理重叠部分
+     */
+    public void andNot(GridMask other) {
+        int rowCount = Math.min(rows, other.rows);
+        int wordCount = Math.min(wordsPerRow, other.wordsPerRow);
+        for (int r = 0; r < rowCount; r++) {
+            int base = r * wordsPerRow;
+            int otherBase = r * other.wordsPerRow;
+            for (int w = 0; w < wordCount; w++) {
+                words[base + w] &= ~other.words[otherBase + w];
+            }
+        }
+        version++;
+    }
+
+    private void applyRect(int top, int left, int bottom, int right, int op) {
+        top = Math.max(top, 0);
+        bottom = Math.min(bottom, rows);
+        for (int row = top; row < bottom; row++) {
+            applySpan(row, left, right, op);
+        }
+    }
+
+    private void applySpan(int row, int from, int to, int op) {
+        if (row < 0 || row >= rows) {
+            return;
+        }
+        from = Math.max(from, 0);
+        to = Math.min(to, columns);
+        if (from >= to) {
+            return;
+        }
+        version++;
+        int base = row * wordsPerRow;
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        //Java的移位只取低6位，因此 -1L << from 即首个long的掩码，-1L >>> -to 即末个long的掩码
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            applyWord(base + firstWord, firstMask & lastMask, op);
+            return;
+        }
+        applyWord(base + firstWord, firstMask, op);
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            applyWord(base + i, -1L, op);
+        }
+        applyWord(base + lastWord, lastMask, op);
+    }
+
+    private void applyWord(int index, long mask, int op) {
+        switch (op) {
+            case OP_SET:
+                words[index] |= mask;
+                break;
+            case OP_CLEAR:
+                words[index] &= ~mask;
+                break;
+            default:
+                words[index] ^= mask;
+                break;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GridMask)) {
+            return false;
+        }
+        GridMask other = (GridMask) o;
+        if (rows != other.rows || columns != other.columns) {
+            return false;
+        }
+        int size = rows * wordsPerRow;
+        for (int i = 0; i < size; i++) {
+            if (words[i] != other.words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * rows + columns;
+        int size = rows * wordsPerRow;
+        for (int i = 0; i < size; i++) {
+            long word = words[i];
+            result = 31 * result + (int) (word ^ (word >>> 32));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "GridMask{" + rows + "x" + columns + ", cardinality=" + cardinality() + '}';
+    }
+}
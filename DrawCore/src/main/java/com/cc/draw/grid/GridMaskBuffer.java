@@ -0,0 +1,167 @@
+package com.cc.draw.grid;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 将{@link GridMask}发布到堆外的direct ByteBuffer中，native代码可以通过
+ * {@code GetDirectBufferAddress}直接读取，不需要经过字符串序列化
+ * <p>
+ * 内存布局（小端，与 {@code DrawGrid/src/main/cpp/grid_mask.h} 保持一致）：
+ * <pre>
+ * offset  size  字段
+ * 0       4     magic，固定为 {@link #MAGIC}（字节序列 "GMSK"）
+ * 4       4     布局版本，当前为 {@link #LAYOUT_VERSION}
+ * 8       4     行数
+ * 12      4     列数
+ * 16      4     每行long个数 wordsPerRow
+ * 20      4     标记，{@link #FLAG_DETACHED} 表示已被新的buffer替代
+ * 24      8     generation，写入过程中为奇数，写入完成后为偶数
+ * 32      ...   位数据，rows * wordsPerRow 个64位整数，按行连续存放，位布局与{@link GridMask}相同
+ * </pre>
+ * 读取方按顺序锁的方式读取：先读generation，为奇数则重试；复制数据后再读一次generation，
+ * 两次相同才说明数据完整。generation不变则内容没有变化，无需重新读取。
+ * <p>
+ * 只允许一个线程写入。
+ */
+public class GridMaskBuffer {
+
+    public static final int MAGIC = 0x4B534D47;
+    public static final int LAYOUT_VERSION = 1;
+    public static final int FLAG_DETACHED = 1;
+
+    public static final int OFFSET_MAGIC = 0;
+    public static final int OFFSET_VERSION = 4;
+    public static final int OFFSET_ROWS = 8;
+    public static final int OFFSET_COLUMNS = 12;
+    public static final int OFFSET_WORDS_PER_ROW = 16;
+    public static final int OFFSET_FLAGS = 20;
+    public static final int OFFSET_GENERATION = 24;
+    public static final int HEADER_SIZE = 32;
+
+    private ByteBuffer buffer;
+    private int rows, columns, wordsPerRow;
+    private long generation;
+    /**
+     * 最近一次发布的网格及其修改计数，未变化时直接跳过
+     */
+    private GridMask publishedMask;
+    private int publishedVersion;
+    /**
+     * 只用于写入屏障：ART和HotSpot在volatile写前后都会插入内存屏障，
+     * 保证generation和位数据的写入顺序对其它线程（包括native线程）可见
+     */
+    private volatile int barrier;
+
+    public GridMaskBuffer() {
+        allocate(0, 0);
+    }
+
+    /**
+     * 当前的buffer，网格尺寸变大后会替换为新的buffer，旧buffer会被标记为{@link #FLAG_DETACHED}
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * 发布网格内容，只写入发生变化的行，没有任何变化时generation保持不变
+     *
+     * @return 是否有内容被写入
+     */
+    public boolean publish(GridMask mask) {
+        if (mask == publishedMask && mask.getVersion() == publishedVersion) {
+            return false;
+        }
+        publishedMask = mask;
+        publishedVersion = mask.getVersion();
+        if (mask.getRows() != rows || mask.getColumns() != columns) {
+            //头部和全部数据在同一次写入中完成，读取方不会看到新的尺寸配上旧的数据
+            ensureCapacity(mask.getRows(), mask.getColumns());
+            beginWrite();
+            writeLayout(mask.getRows(), mask.getColumns());
+            for (int i = 0, size = rows * wordsPerRow; i < size; i++) {
+                buffer.putLong(HEADER_SIZE + (i << 3), mask.words[i]);
+            }
+            endWrite();
+            return true;
+        }
+        boolean writing = false;
+        for (int r = 0; r < rows; r++) {
+            int base = r * wordsPerRow;
+            if (rowEquals(mask, base)) {
+                continue;
+            }
+            if (!writing) {
+                writing = true;
+                beginWrite();
+            }
+            for (int w = 0; w < wordsPerRow; w++) {
+                buffer.putLong(HEADER_SIZE + ((base + w) << 3), mask.words[base + w]);
+            }
+        }
+        if (writing) {
+            endWrite();
+        }
+        return writing;
+    }
+
+    private boolean rowEquals(GridMask mask, int base) {
+        for (int w = 0; w < wordsPerRow; w++) {
+            if (buffer.getLong(HEADER_SIZE + ((base + w) << 3)) != mask.words[base + w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 容量不足时把旧buffer标记为{@link #FLAG_DETACHED}并分配新的buffer，尺寸由之后的{@link #writeLayout(int, int)}写入
+     */
+    private void ensureCapacity(int rows, int columns) {
+        if (HEADER_SIZE + ((long) rows * GridMask.wordsFor(columns) << 3) <= buffer.capacity()) {
+            return;
+        }
+        beginWrite();
+        buffer.putInt(OFFSET_FLAGS, FLAG_DETACHED);
+        endWrite();
+        allocate(rows, columns);
+    }
+
+    /**
+     * 写入尺寸，需在beginWrite和endWrite之间调用
+     */
+    private void writeLayout(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = GridMask.wordsFor(columns);
+        buffer.putInt(OFFSET_ROWS, rows);
+        buffer.putInt(OFFSET_COLUMNS, columns);
+        buffer.putInt(OFFSET_WORDS_PER_ROW, wordsPerRow);
+    }
+
+    private void allocate(int rows, int columns) {
+        buffer = ByteBuffer.allocateDirect(HEADER_SIZE + (rows * GridMask.wordsFor(columns) << 3)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, LAYOUT_VERSION);
+        writeLayout(rows, columns);
+        buffer.putInt(OFFSET_FLAGS, 0);
+        buffer.putLong(OFFSET_GENERATION, generation);
+        barrier = 0;
+    }
+
+    private void beginWrite() {
+        buffer.putLong(OFFSET_GENERATION, ++generation);
+        barrier = 0;
+    }
+
+    private void endWrite() {
+        barrier = 0;
+        buffer.putLong(OFFSET_GENERATION, ++generation);
+        barrier = 0;
+    }
+}
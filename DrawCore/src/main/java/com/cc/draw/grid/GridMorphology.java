@@ -0,0 +1,315 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+
+/**
+ * 网格的形态学运算：膨胀、腐蚀、开运算、闭运算和填充孔洞，均直接修改传入的网格
+ * <p>
+ * 所有运算都以整行的long为单位做移位和按位或/与。膨胀时网格外视为未填充，腐蚀时网格外视为填充，
+ * 因此贴边的区域不会因为腐蚀而从边上缩小。
+ * <p>
+ * 内部复用临时数组，非线程安全。
+ */
+public class GridMorphology {
+
+    private long[] source = new long[0];
+    private long[] spread = new long[0];
+    private long[] rowBuffer = new long[0];
+
+    /**
+     * 膨胀：结构元素平移到任意已填充的网格后覆盖到的网格都会被填充
+     */
+    public void dilate(GridMask mask, StructuringElement element) {
+        int rows = mask.getRows();
+        int wordsPerRow = mask.getWordsPerRow();
+        int size = rows * wordsPerRow;
+        if (size == 0) {
+            return;
+        }
+        ensureCapacity(size, wordsPerRow);
+        long[] words = mask.words;
+        System.arraycopy(words, 0, source, 0, size);
+        Arrays.fill(words, 0, size, 0L);
+        long lastMask = -1L >>> -mask.getColumns();
+        int count = element.size();
+        for (int i = 0; i < count; i++) {
+            int from = element.getFrom(i);
+            int to = element.getTo(i);
+            //列区间相同的项共用同一次水平膨胀的结果
+            boolean computed = false;
+            for (int j = 0; j < i; j++) {
+                if (element.getFrom(j) == from && element.getTo(j) == to) {
+                    computed = true;
+                    break;
+                }
+            }
+            if (computed) {
+                continue;
+            }
+            for (int r = 0; r < rows; r++) {
+                spreadRow(source, r * wordsPerRow, spread, r * wordsPerRow, wordsPerRow, from, to);
+                spread[r * wordsPerRow + wordsPerRow - 1] &= lastMask;
+            }
+            for (int j = i; j < count; j++) {
+                if (element.getFrom(j) != from || element.getTo(j) != to) {
+                    continue;
+                }
+                int dy = element.getRowOffset(j);
+                for (int r = Math.max(dy, 0), end = Math.min(rows, rows + dy); r < end; r++) {
+                    int base = r * wordsPerRow;
+                    int sourceBase = (r - dy) * wordsPerRow;
+                    for (int w = 0; w < wordsPerRow; w++) {
+                        words[base + w] |= spread[sourceBase + w];
+                    }
+                }
+            }
+        }
+        mask.touch();
+    }
+
+    /**
+     * 腐蚀：只有结构元素平移到该网格后覆盖的网格全部已填充时才保留
+     */
+    public void erode(GridMask mask, StructuringElement element) {
+        invert(mask);
+        dilate(mask, element.reflect());
+        invert(mask);
+    }
+
+    /**
+     * 开运算：先腐蚀再膨胀，去除比结构元素小的噪点
+     */
+    public void open(GridMask mask, StructuringElement element) {
+        erode(mask, element);
+        dilate(mask, element);
+    }
+
+    /**
+     * 闭运算：先膨胀再腐蚀，填平比结构元素小的缝隙
+     */
+    public void close(GridMask mask, StructuringElement element) {
+        dilate(mask, element);
+        erode(mask, element);
+    }
+
+    /**
+     * 填充孔洞：未填充且不能通过上下左右相邻的未填充网格连通到网格边缘的网格都会被填充
+     */
+    public void fillHoles(GridMask mask) {
+        int rows = mask.getRows();
+        int wordsPerRow = mask.getWordsPerRow();
+        int size = rows * wordsPerRow;
+        if (size == 0) {
+            return;
+        }
+        ensureCapacity(size, wordsPerRow);
+        long[] words = mask.words;
+        long lastMask = -1L >>> -mask.getColumns();
+        int lastColumn = mask.getColumns() - 1;
+        //source保存未填充的网格，spread保存从边缘可以到达的未填充网格
+        long[] empty = source;
+        long[] reached = spread;
+        for (int i = 0; i < size; i++) {
+            empty[i] = ~words[i];
+            if (i % wordsPerRow == wordsPerRow - 1) {
+                empty[i] &= lastMask;
+            }
+            reached[i] = 0;
+        }
+        for (int r = 0; r < rows; r++) {
+            int base = r * wordsPerRow;
+            if (r == 0 || r == rows - 1) {
+                System.arraycopy(empty, base, reached, base, wordsPerRow);
+            } else {
+                reached[base] |= empty[base] & 1L;
+                reached[base + (lastColumn >>> 6)] |= empty[base + (lastColumn >>> 6)] & (1L << lastColumn);
+            }
+        }
+        //自上而下、自下而上交替扫描，每行先接收相邻行的结果，再沿未填充的连续区间向左右扩展，直到不再变化
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int r = 0; r < rows; r++) {
+                changed |= propagateRow(empty, reached, r, r - 1, rows, wordsPerRow);
+            }
+            for (int r = rows - 1; r >= 0; r--) {
+                changed |= propagateRow(empty, reached, r, r + 1, rows, wordsPerRow);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            words[i] = ~reached[i];
+            if (i % wordsPerRow == wordsPerRow - 1) {
+                words[i] &= lastMask;
+            }
+        }
+        mask.touch();
+    }
+
+    /**
+     * 第row行从相邻行接收可到达的网格，并在行内沿未填充的区间扩展
+     *
+     * @return 该行是否发生变化
+     */
+    private boolean propagateRow(long[] empty, long[] reached, int row, int neighbor, int rows, int wordsPerRow) {
+        int base = row * wordsPerRow;
+        boolean changed = false;
+        long[] seed = rowBuffer;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long value = reached[base + w];
+            if (neighbor >= 0 && neighbor < rows) {
+                value |= reached[neighbor * wordsPerRow + w] & empty[base + w];
+            }
+            seed[w] = value;
+        }
+        //向高位（右侧）扩展，低位的long先处理，进位传给下一个long
+        long carry = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long filled = fillUp(seed[w] | (carry & empty[base + w]), empty[base + w]);
+            carry = filled >>> 63;
+            seed[w] = filled;
+        }
+        //向低位（左侧）扩展
+        carry = 0;
+        for (int w = wordsPerRow - 1; w >= 0; w--) {
+            long filled = fillDown(seed[w] | (carry & empty[base + w]), empty[base + w]);
+            carry = (filled & 1L) << 63;
+            seed[w] = filled;
+        }
+        for (int w = 0; w < wordsPerRow; w++) {
+            if (seed[w] != reached[base + w]) {
+                reached[base + w] = seed[w];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 把gen中的位沿着pro中连续的1向高位扩展（Kogge-Stone并行前缀）
+     */
+    private static long fillUp(long gen, long pro) {
+        gen |= pro & (gen << 1);
+        pro &= pro << 1;
+        gen |= pro & (gen << 2);
+        pro &= pro << 2;
+        gen |= pro & (gen << 4);
+        pro &= pro << 4;
+        gen |= pro & (gen << 8);
+        pro &= pro << 8;
+        gen |= pro & (gen << 16);
+        pro &= pro << 16;
+        gen |= pro & (gen << 32);
+        return gen;
+    }
+
+    /**
+     * 把gen中的位沿着pro中连续的1向低位扩展
+     */
+    private static long fillDown(long gen, long pro) {
+        gen |= pro & (gen >>> 1);
+        pro &= pro >>> 1;
+        gen |= pro & (gen >>> 2);
+        pro &= pro >>> 2;
+        gen |= pro & (gen >>> 4);
+        pro &= pro >>> 4;
+        gen |= pro & (gen >>> 8);
+        pro &= pro >>> 8;
+        gen |= pro & (gen >>> 16);
+        pro &= pro >>> 16;
+        gen |= pro & (gen >>> 32);
+        return gen;
+    }
+
+    /**
+     * 水平膨胀一行：dst = 把src分别平移from..to列后的并集，平移量为正时向右（高位）移动
+     * <p>
+     * 正负两个方向分开处理：先平移到离原点最近的位置，再用倍增向外扩展，每次把已覆盖的宽度再平移一次，
+     * log(to - from + 1)次完成。同一方向上移出网格的位不会再移回来，可以直接丢弃。
+     */
+    private void spreadRow(long[] src, int srcBase, long[] dst, int dstBase, int wordsPerRow, int from, int to) {
+        Arrays.fill(dst, dstBase, dstBase + wordsPerRow, 0L);
+        long[] row = rowBuffer;
+        if (to >= 0) {
+            int start = Math.max(from, 0);
+            Arrays.fill(row, 0, wordsPerRow, 0L);
+            orShifted(src, srcBase, row, 0, wordsPerRow, start);
+            spreadInPlace(row, wordsPerRow, to - start + 1, 1);
+            orShifted(row, 0, dst, dstBase, wordsPerRow, 0);
+        }
+        if (from < 0) {
+            int start = Math.min(to, -1);
+            Arrays.fill(row, 0, wordsPerRow, 0L);
+            orShifted(src, srcBase, row, 0, wordsPerRow, start);
+            spreadInPlace(row, wordsPerRow, start - from + 1, -1);
+            orShifted(row, 0, dst, dstBase, wordsPerRow, 0);
+        }
+    }
+
+    /**
+     * row = 把row分别向direction方向平移0..width-1列后的并集
+     */
+    private static void spreadInPlace(long[] row, int wordsPerRow, int width, int direction) {
+        int covered = 1;
+        while (covered < width) {
+            int step = Math.min(covered, width - covered);
+            orShifted(row, 0, row, 0, wordsPerRow, step * direction);
+            covered += step;
+        }
+    }
+
+    /**
+     * dst |= src 平移shift列，src与dst可以是同一段数组
+     */
+    private static void orShifted(long[] src, int srcBase, long[] dst, int dstBase, int wordsPerRow, int shift) {
+        if (shift >= 0) {
+            int wordShift = shift >>> 6;
+            int bitShift = shift & 63;
+            //从高位往低位处理，src与dst相同时不会读到已修改的值
+            for (int w = wordsPerRow - 1; w >= wordShift; w--) {
+                int s = w - wordShift;
+                long value = src[srcBase + s] << bitShift;
+                if (bitShift != 0 && s > 0) {
+                    value |= src[srcBase + s - 1] >>> (64 - bitShift);
+                }
+                dst[dstBase + w] |= value;
+            }
+        } else {
+            int wordShift = -shift >>> 6;
+            int bitShift = -shift & 63;
+            for (int w = 0; w + wordShift < wordsPerRow; w++) {
+                int s = w + wordShift;
+                long value = src[srcBase + s] >>> bitShift;
+                if (bitShift != 0 && s + 1 < wordsPerRow) {
+                    value |= src[srcBase + s + 1] << (64 - bitShift);
+                }
+                dst[dstBase + w] |= value;
+            }
+        }
+    }
+
+    /**
+     * 网格内取反，超出列数的位保持为0
+     */
+    private static void invert(GridMask mask) {
+        int wordsPerRow = mask.getWordsPerRow();
+        long lastMask = -1L >>> -mask.getColumns();
+        long[] words = mask.words;
+        for (int i = 0, size = mask.getRows() * wordsPerRow; i < size; i++) {
+            words[i] = ~words[i];
+            if (i % wordsPerRow == wordsPerRow - 1) {
+                words[i] &= lastMask;
+            }
+        }
+        mask.touch();
+    }
+
+    private void ensureCapacity(int size, int wordsPerRow) {
+        if (source.length < size) {
+            source = new long[size];
+            spread = new long[size];
+        }
+        if (rowBuffer.length < wordsPerRow) {
+            rowBuffer = new long[wordsPerRow];
+        }
+    }
+}
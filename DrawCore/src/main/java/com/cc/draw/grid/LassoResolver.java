@@ -0,0 +1,145 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在后台线程计算套索闭合区域，网格很大或路径很复杂时避免阻塞UI线程
+ * <p>
+ * 每次{@link #submit}复制一份路径坐标，在后台把闭合区域填充到一个新的网格中，再通过{@link Callback}交回结果。
+ * 每次提交和{@link #cancel()}都会使之前的结果过期：过期的任务开始前或填充完成后直接丢弃，不再回调；
+ * 回调与应用结果之间仍可能被取消，调用方应在UI线程中再用{@link #isCurrent(int)}或自己保存的编号检查一次。
+ * <p>
+ * 结果网格用完后可以通过{@link #recycle(GridMask)}交回复用，连续套索时不会反复分配大块内存。
+ */
+public class LassoResolver {
+
+    /**
+     * 计算完成的回调，在后台线程中执行
+     */
+    public interface Callback {
+        /**
+         * @param token {@link #submit}返回的编号
+         * @param area  闭合区域内的网格，不再使用后可以交给{@link #recycle(GridMask)}
+         */
+        void onResolved(int token, GridMask area);
+    }
+
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+    /**
+     * 只在后台线程中使用
+     */
+    private final PolygonRasterizer rasterizer = new PolygonRasterizer();
+    private GridMask spare;
+
+    /**
+     * 使用自己的单个后台线程
+     */
+    public LassoResolver() {
+        ownedExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LassoResolver");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor = ownedExecutor;
+    }
+
+    /**
+     * @param executor 执行计算的线程，必须按提交顺序逐个执行任务
+     */
+    public LassoResolver(Executor executor) {
+        this.executor = executor;
+        ownedExecutor = null;
+    }
+
+    /**
+     * 提交一次套索计算，之前尚未完成的计算随之过期
+     *
+     * @param points      路径坐标 x0, y0, x1, y1 ...，会被复制，提交后可以继续修改
+     * @param pointCount  点数
+     * @param cellWidth   网格宽度
+     * @param cellHeight  网格高度
+     * @param rows        网格行数
+     * @param columns     网格列数
+     * @param fillPolicy  见{@link PolygonRasterizer#setFillPolicy(int, float)}
+     * @param minCoverage 见{@link PolygonRasterizer#setFillPolicy(int, float)}
+     * @return 本次计算的编号
+     */
+    public int submit(float[] points, int pointCount, final float cellWidth, final float cellHeight,
+                      final int rows, final int columns, final int fillPolicy, final float minCoverage,
+                      final Callback callback) {
+        final float[] coords = Arrays.copyOf(points, pointCount * 2);
+        final int count = pointCount;
+        final int token = generation.incrementAndGet();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCurrent(token)) {
+                    return;
+                }
+                GridMask area = obtain(rows, columns);
+                rasterizer.setFillPolicy(fillPolicy, minCoverage);
+                rasterizer.fill(coords, count, cellWidth, cellHeight, area, true);
+                if (!isCurrent(token)) {
+                    recycle(area);
+                    return;
+                }
+                callback.onResolved(token, area);
+            }
+        });
+        return token;
+    }
+
+    /**
+     * 使尚未完成的计算过期
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * 编号是否为最近一次提交且未被取消
+     */
+    public boolean isCurrent(int token) {
+        return generation.get() == token;
+    }
+
+    /**
+     * 交回用完的结果网格，供下一次计算复用
+     */
+    public synchronized void recycle(GridMask area) {
+        spare = area;
+    }
+
+    private synchronized GridMask obtain(int rows, int columns) {
+        GridMask area = spare;
+        spare = null;
+        if (area == null || area.getRows() != rows || area.getColumns() != columns) {
+            return new GridMask(rows, columns);
+        }
+        area.clearAll();
+        return area;
+    }
+
+    /**
+     * 取消尚未完成的计算，并结束自己创建的后台线程，之后不能再提交
+     */
+    public void shutdown() {
+        cancel();
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        synchronized (this) {
+            spare = null;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+
+/**
+ * 两个网格之间的差异：新增和清除的区间、变化范围和版本号
+ * <p>
+ * {@link #compute(GridMask, GridMask)}逐个long比较，只有发生变化的long才提取区间，
+ * 区间跨越long的边界时自动合并，同一行内按列有序。计算的同时把旧网格更新为新网格，
+ * 接收方保存一份上次通知时的网格即可连续得到每次的增量，不需要重新编码整个网格。
+ * <p>
+ * 对象会被复用，在回调之外使用时需要自己复制数据。
+ */
+public class MaskDelta {
+
+    private int rows, columns;
+    private int version;
+    private boolean resized;
+
+    /**
+     * 新增的区间：第i个区间位于addedRow[i]行的[addedFrom[i], addedTo[i])列
+     */
+    private int addedCount;
+    private int[] addedRow = new int[16];
+    private int[] addedFrom = new int[16];
+    private int[] addedTo = new int[16];
+
+    private int removedCount;
+    private int[] removedRow = new int[16];
+    private int[] removedFrom = new int[16];
+    private int[] removedTo = new int[16];
+
+    private int top, left, bottom, right;
+
+    /**
+     * 计算从previous到current的变化，并把previous更新为与current相同
+     *
+     * @return 是否有变化
+     */
+    public boolean compute(GridMask previous, GridMask current) {
+        if (previous.getRows() != current.getRows() || previous.getColumns() != current.getColumns()) {
+            throw new IllegalArgumentException("size mismatch: " + previous.getRows() + "x" + previous.getColumns()
+                    + " != " + current.getRows() + "x" + current.getColumns());
+        }
+        rows = current.getRows();
+        columns = current.getColumns();
+        version = current.getVersion();
+        resized = false;
+        addedCount = 0;
+        removedCount = 0;
+        top = left = Integer.MAX_VALUE;
+        bottom = right = 0;
+        int wordsPerRow = current.getWordsPerRow();
+        long[] oldWords = previous.words;
+        long[] newWords = current.words;
+        for (int r = 0; r < rows; r++) {
+            int base = r * wordsPerRow;
+            boolean changed = false;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long oldWord = oldWords[base + w];
+                long newWord = newWords[base + w];
+                if (oldWord == newWord) {
+                    continue;
+                }
+                changed = true;
+                addSpans(r, w << 6, newWord & ~oldWord, true);
+                addSpans(r, w << 6, oldWord & ~newWord, false);
+                oldWords[base + w] = newWord;
+            }
+            if (changed) {
+                top = Math.min(top, r);
+                bottom = r + 1;
+            }
+        }
+        if (bottom == 0) {
+            top = left = 0;
+            return false;
+        }
+        previous.touch();
+        return true;
+    }
+
+    /**
+     * 标记网格尺寸发生了变化，此时previous应为新尺寸的空网格，所有已填充的网格都作为新增区间
+     */
+    public void setResized(boolean resized) {
+        this.resized = resized;
+    }
+
+    /**
+     * 网格尺寸是否发生了变化，为true时接收方应清空自己保存的网格后再应用
+     */
+    public boolean isResized() {
+        return resized;
+    }
+
+    /**
+     * 把变化应用到与previous状态相同的网格上
+     */
+    public void apply(GridMask target) {
+        for (int i = 0; i < removedCount; i++) {
+            target.clearSpan(removedRow[i], removedFrom[i], removedTo[i]);
+        }
+        for (int i = 0; i < addedCount; i++) {
+            target.setSpan(addedRow[i], addedFrom[i], addedTo[i]);
+        }
+    }
+
+    private void addSpans(int row, int base, long bits, boolean added) {
+        while (bits != 0) {
+            int start = Long.numberOfTrailingZeros(bits);
+            int end = start + Long.numberOfTrailingZeros(~(bits >>> start));
+            bits = end >= 64 ? 0 : bits & (-1L << end);
+            if (added) {
+                addAdded(row, base + start, base + end);
+            } else {
+                addRemoved(row, base + start, base + end);
+            }
+            left = Math.min(left, base + start);
+            right = Math.max(right, base + end);
+        }
+    }
+
+    private void addAdded(int row, int from, int to) {
+        if (addedCount > 0 && addedRow[addedCount - 1] == row && addedTo[addedCount - 1] == from) {
+            //接着上一个long末尾的区间
+            addedTo[addedCount - 1] = to;
+            return;
+        }
+        if (addedCount == addedRow.length) {
+            int capacity = addedCount * 2;
+            addedRow = Arrays.copyOf(addedRow, capacity);
+            addedFrom = Arrays.copyOf(addedFrom, capacity);
+            addedTo = Arrays.copyOf(addedTo, capacity);
+        }
+        addedRow[addedCount] = row;
+        addedFrom[addedCount] = from;
+        addedTo[addedCount] = to;
+        addedCount++;
+    }
+
+    private void addRemoved(int row, int from, int to) {
+        if (removedCount > 0 && removedRow[removedCount - 1] == row && removedTo[removedCount - 1] == from) {
+            removedTo[removedCount - 1] = to;
+            return;
+        }
+        if (removedCount == removedRow.length) {
+            int capacity = removedCount * 2;
+            removedRow = Arrays.copyOf(removedRow, capacity);
+            removedFrom = Arrays.copyOf(removedFrom, capacity);
+            removedTo = Arrays.copyOf(removedTo, capacity);
+        }
+        removedRow[removedCount] = row;
+        removedFrom[removedCount] = from;
+        removedTo[removedCount] = to;
+        removedCount++;
+    }
+
+    public boolean isEmpty() {
+        return addedCount == 0 && removedCount == 0;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * 计算时新网格的版本号，同一个网格的版本号只增不减
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * 新增区间的数量
+     */
+    public int getAddedCount() {
+        return addedCount;
+    }
+
+    public int getAddedRow(int index) {
+        return addedRow[index];
+    }
+
+    /**
+     * 新增区间的起始列（包含）
+     */
+    public int getAddedFrom(int index) {
+        return addedFrom[index];
+    }
+
+    /**
+     * 新增区间的结束列（不包含）
+     */
+    public int getAddedTo(int index) {
+        return addedTo[index];
+    }
+
+    /**
+     * 清除区间的数量
+     */
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    public int getRemovedRow(int index) {
+        return removedRow[index];
+    }
+
+    /**
+     * 清除区间的起始列（包含）
+     */
+    public int getRemovedFrom(int index) {
+        return removedFrom[index];
+    }
+
+    /**
+     * 清除区间的结束列（不包含）
+     */
+    public int getRemovedTo(int index) {
+        return removedTo[index];
+    }
+
+    /**
+     * 变化范围的上边界（行，包含）
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * 变化范围的左边界（列，包含）
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * 变化范围的下边界（行，不包含）
+     */
+    public int getBottom() {
+        return bottom;
+    }
+
+    /**
+     * 变化范围的右边界（列，不包含）
+     */
+    public int getRight() {
+        return right;
+    }
+}
@@ -0,0 +1,263 @@
+package com.cc.draw.grid;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * 网格的撤销/重做记录
+ * <p>
+ * 每次操作只保存发生变化的long的下标和异或值，撤销和重做都是把这些异或值再异或回去，
+ * 耗时和内存只与变化的long个数有关。内存上限同时包括撤销和重做记录，超出时从最早的撤销记录开始丢弃，
+ * 撤销记录丢弃完仍超出时再从离当前状态最远的重做记录开始丢弃。
+ * <p>
+ * 用法：修改前调用{@link #begin(GridMask)}，修改后调用{@link #end(GridMask)}。
+ */
+public class MaskHistory {
+
+    /**
+     * 默认内存上限
+     */
+    public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+    /**
+     * 每条记录除数组之外的大致开销
+     */
+    private static final int ENTRY_OVERHEAD = 48;
+
+    private static class Entry {
+        final int rows, columns;
+        final int[] indices;
+        final long[] xors;
+
+        Entry(int rows, int columns, int[] indices, long[] xors) {
+            this.rows = rows;
+            this.columns = columns;
+            this.indices = indices;
+            this.xors = xors;
+        }
+
+        int bytes() {
+            return ENTRY_OVERHEAD + indices.length * 4 + xors.length * 8;
+        }
+    }
+
+    private final ArrayDeque<Entry> undoStack = new ArrayDeque<>();
+    private final ArrayDeque<Entry> redoStack = new ArrayDeque<>();
+    private int maxBytes = DEFAULT_MAX_BYTES;
+    private int usedBytes;
+
+    /**
+     * 操作开始前的网格，复用以避免每次操作都分配
+     */
+    private GridMask before;
+    private boolean recording;
+    private int[] indexBuffer = new int[16];
+    private long[] xorBuffer = new long[16];
+    /**
+     * 最近一次{@link #end(GridMask)}、{@link #cancel(GridMask)}、{@link #undo(GridMask)}或{@link #redo(GridMask)}改变的行范围
+     */
+    private int changedFromRow, changedToRow;
+
+    /**
+     * 设置内存上限（字节），超出时丢弃最早的记录，调低上限时重做记录也可能被丢弃
+     */
+    public void setMaxBytes(int maxBytes) {
+        this.maxBytes = Math.max(maxBytes, 0);
+        trim();
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 当前撤销和重做记录占用的大致内存（字节）
+     */
+    public int getUsedBytes() {
+        return usedBytes;
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * 开始一次操作，保存当前的网格状态
+     */
+    public void begin(GridMask mask) {
+        if (before == null || before.getRows() != mask.getRows() || before.getColumns() != mask.getColumns()) {
+            before = new GridMask(mask);
+        } else {
+            before.copyFrom(mask);
+        }
+        recording = true;
+    }
+
+    /**
+     * 结束一次操作，记录与{@link #begin(GridMask)}时的差异，网格没有变化时不产生记录
+     *
+     * @return 是否产生了新的记录
+     */
+    public boolean end(GridMask mask) {
+        changedFromRow = changedToRow = 0;
+        if (!recording) {
+            return false;
+        }
+        recording = false;
+        if (before.getRows() != mask.getRows() || before.getColumns() != mask.getColumns()) {
+            clear();
+            return false;
+        }
+        int count = 0;
+        long[] oldWords = before.words;
+        long[] newWords = mask.words;
+        for (int i = 0, size = mask.getRows() * mask.getWordsPerRow(); i < size; i++) {
+            long xor = oldWords[i] ^ newWords[i];
+            if (xor == 0) {
+                continue;
+            }
+            if (count == indexBuffer.length) {
+                indexBuffer = Arrays.copyOf(indexBuffer, count * 2);
+                xorBuffer = Arrays.copyOf(xorBuffer, count * 2);
+            }
+            indexBuffer[count] = i;
+            xorBuffer[count] = xor;
+            count++;
+        }
+        if (count == 0) {
+            return false;
+        }
+        //下标按升序排列，首尾即变化的行范围
+        changedFromRow = indexBuffer[0] / mask.getWordsPerRow();
+        changedToRow = indexBuffer[count - 1] / mask.getWordsPerRow() + 1;
+        clearRedo();
+        Entry entry = new Entry(mask.getRows(), mask.getColumns(),
+                Arrays.copyOf(indexBuffer, count), Arrays.copyOf(xorBuffer, count));
+        undoStack.push(entry);
+        usedBytes += entry.bytes();
+        trim();
+        return true;
+    }
+
+    /**
+     * 放弃进行中的操作，网格恢复到{@link #begin(GridMask)}时的状态，不产生记录
+     *
+     * @return 网格是否发生了变化
+     */
+    public boolean cancel(GridMask mask) {
+        changedFromRow = changedToRow = 0;
+        if (!recording) {
+            return false;
+        }
+        recording = false;
+        if (before.getRows() != mask.getRows() || before.getColumns() != mask.getColumns()) {
+            return false;
+        }
+        long[] oldWords = before.words;
+        long[] newWords = mask.words;
+        int size = mask.getRows() * mask.getWordsPerRow();
+        int first = 0;
+        while (first < size && oldWords[first] == newWords[first]) {
+            first++;
+        }
+        if (first == size) {
+            return false;
+        }
+        int last = size - 1;
+        while (oldWords[last] == newWords[last]) {
+            last--;
+        }
+        changedFromRow = first / mask.getWordsPerRow();
+        changedToRow = last / mask.getWordsPerRow() + 1;
+        mask.copyFrom(before);
+        return true;
+    }
+
+    /**
+     * 撤销最近一次操作
+     *
+     * @return 是否撤销成功，网格尺寸已改变时会清空记录并返回false
+     */
+    public boolean undo(GridMask mask) {
+        return move(undoStack, redoStack, mask);
+    }
+
+    /**
+     * 重做最近一次撤销的操作
+     *
+     * @return 是否重做成功，网格尺寸已改变时会清空记录并返回false
+     */
+    public boolean redo(GridMask mask) {
+        return move(redoStack, undoStack, mask);
+    }
+
+    /**
+     * 最近一次{@link #end(GridMask)}、{@link #cancel(GridMask)}、{@link #undo(GridMask)}或{@link #redo(GridMask)}改变的起始行（包含），
+     * 没有变化时与{@link #getChangedToRow()}相等
+     */
+    public int getChangedFromRow() {
+        return changedFromRow;
+    }
+
+    /**
+     * 最近一次改变的结束行（不包含）
+     */
+    public int getChangedToRow() {
+        return changedToRow;
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+        usedBytes = 0;
+        recording = false;
+    }
+
+    private void clearRedo() {
+        for (Entry entry : redoStack) {
+            usedBytes -= entry.bytes();
+        }
+        redoStack.clear();
+    }
+
+    private boolean move(ArrayDeque<Entry> from, ArrayDeque<Entry> to, GridMask mask) {
+        changedFromRow = changedToRow = 0;
+        Entry entry = from.peek();
+        if (entry == null) {
+            return false;
+        }
+        if (entry.rows != mask.getRows() || entry.columns != mask.getColumns()) {
+            clear();
+            return false;
+        }
+        from.pop();
+        long[] words = mask.words;
+        for (int i = 0; i < entry.indices.length; i++) {
+            words[entry.indices[i]] ^= entry.xors[i];
+        }
+        mask.touch();
+        changedFromRow = entry.indices[0] / mask.getWordsPerRow();
+        changedToRow = entry.indices[entry.indices.length - 1] / mask.getWordsPerRow() + 1;
+        to.push(entry);
+        return true;
+    }
+
+    /**
+     * 超出内存上限时从最早的撤销记录开始丢弃，撤销记录为空时再丢弃离当前状态最远的重做记录，
+     * 剩下的重做记录仍然可以依次重做
+     */
+    private void trim() {
+        while (usedBytes > maxBytes && !undoStack.isEmpty()) {
+            usedBytes -= undoStack.removeLast().bytes();
+        }
+        while (usedBytes > maxBytes && !redoStack.isEmpty()) {
+            usedBytes -= redoStack.removeLast().bytes();
+        }
+    }
+}
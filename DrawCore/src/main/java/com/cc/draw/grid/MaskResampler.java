@@ -0,0 +1,122 @@
+package com.cc.draw.grid;
+
+/**
+ * 不同行列数之间的网格重采样，见{@link GridMask#resampleTo(GridMask, int)}
+ * <p>
+ * 源网格和目标网格覆盖同一块区域。为避免浮点误差，纵向以 源行数 x 目标行数 为总长度：
+ * 源网格每行高 targetRows，目标网格每行高 sourceRows，横向同理，重叠长度都是整数。
+ */
+final class MaskResampler {
+
+    private MaskResampler() {
+    }
+
+    static void resample(GridMask source, GridMask target, int policy) {
+        target.clearAll();
+        int sourceRows = source.getRows();
+        int sourceColumns = source.getColumns();
+        int targetRows = target.getRows();
+        int targetColumns = target.getColumns();
+        if (sourceRows == 0 || sourceColumns == 0 || targetRows == 0 || targetColumns == 0) {
+            return;
+        }
+        //每个目标列对应的源列区间[firstColumn, lastColumn]，以及两端源列的重叠宽度
+        int[] firstColumn = new int[targetColumns];
+        int[] lastColumn = new int[targetColumns];
+        long[] firstWidth = new long[targetColumns];
+        long[] lastWidth = new long[targetColumns];
+        for (int c = 0; c < targetColumns; c++) {
+            long start = (long) c * sourceColumns;
+            long end = start + sourceColumns;
+            firstColumn[c] = (int) (start / targetColumns);
+            lastColumn[c] = (int) ((end - 1) / targetColumns);
+            firstWidth[c] = Math.min((firstColumn[c] + 1L) * targetColumns, end) - start;
+            lastWidth[c] = end - Math.max((long) lastColumn[c] * targetColumns, start);
+        }
+
+        int wordsPerRow = source.getWordsPerRow();
+        long[] words = source.words;
+        long[] combined = new long[wordsPerRow];
+        long[] out = target.words;
+        int targetWordsPerRow = target.getWordsPerRow();
+        //目标网格的面积，按覆盖比例判断时使用
+        long area = (long) sourceRows * sourceColumns;
+        for (int r = 0; r < targetRows; r++) {
+            long start = (long) r * sourceRows;
+            long end = start + sourceRows;
+            int firstRow = (int) (start / targetRows);
+            int lastRow = (int) ((end - 1) / targetRows);
+            int outBase = r * targetWordsPerRow;
+            if (policy != GridMask.RESAMPLE_MAJORITY) {
+                //任意/全部覆盖可以先把重叠的源行按位或/与合并为一行，再逐列判断
+                System.arraycopy(words, firstRow * wordsPerRow, combined, 0, wordsPerRow);
+                for (int i = firstRow + 1; i <= lastRow; i++) {
+                    int base = i * wordsPerRow;
+                    for (int w = 0; w < wordsPerRow; w++) {
+                        if (policy == GridMask.RESAMPLE_ANY) {
+                            combined[w] |= words[base + w];
+                        } else {
+                            combined[w] &= words[base + w];
+                        }
+                    }
+                }
+                for (int c = 0; c < targetColumns; c++) {
+                    boolean fill = policy == GridMask.RESAMPLE_ANY
+                            ? countBits(combined, 0, firstColumn[c], lastColumn[c] + 1) != 0
+                            : countBits(combined, 0, firstColumn[c], lastColumn[c] + 1) == lastColumn[c] + 1 - firstColumn[c];
+                    if (fill) {
+                        out[outBase + (c >>> 6)] |= 1L << c;
+                    }
+                }
+                continue;
+            }
+            for (int c = 0; c < targetColumns; c++) {
+                int first = firstColumn[c];
+                int last = lastColumn[c];
+                long covered = 0;
+                for (int i = firstRow; i <= lastRow; i++) {
+                    long height = Math.min((i + 1L) * targetRows, end) - Math.max((long) i * targetRows, start);
+                    int base = i * wordsPerRow;
+                    long width;
+                    if (first == last) {
+                        width = bit(words, base, first) * (long) sourceColumns;
+                    } else {
+                        width = bit(words, base, first) * firstWidth[c]
+                                + countBits(words, base, first + 1, last) * (long) targetColumns
+                                + bit(words, base, last) * lastWidth[c];
+                    }
+                    covered += height * width;
+                }
+                if (covered * 2 >= area) {
+                    out[outBase + (c >>> 6)] |= 1L << c;
+                }
+            }
+        }
+        target.touch();
+    }
+
+    private static int bit(long[] words, int base, int column) {
+        return (int) (words[base + (column >>> 6)] >>> column) & 1;
+    }
+
+    /**
+     * 统计从base开始的一行中[from, to)内填充的网格数量
+     */
+    private static int countBits(long[] words, int base, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            return Long.bitCount(words[base + firstWord] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(words[base + firstWord] & firstMask);
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            count += Long.bitCount(words[base + i]);
+        }
+        return count + Long.bitCount(words[base + lastWord] & lastMask);
+    }
+}
@@ -0,0 +1,512 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 扫描线多边形填充，将闭合路径内的网格整段写入{@link GridMask}
+ * <p>
+ * 对每一行取网格中心的y坐标与多边形各边求交点，按非零环绕规则（与Path默认的WINDING一致）
+ * 得到内部区间，中心点落在区间内的网格即被填充或擦除。
+ * 交点缓存会复用，填充过程中不产生额外的对象。
+ * <p>
+ * 多个多边形使用边表（按起始行分桶）和活动边表逐行扫描，每条边只在它跨越的行参与计算，
+ * 每个多边形单独计算环绕数，结果为各多边形的并集。
+ * <p>
+ * 除中心点规则外还可以按覆盖面积判断，见{@link #setFillPolicy(int, float)}。覆盖面积按扫描线精确累加：
+ * 每条边在它经过的每个网格中贡献其右侧的有向面积，每行从左到右求前缀和即得到各网格被覆盖的面积，
+ * 耗时与网格数量加上边经过的网格数量成正比。
+ */
+public class PolygonRasterizer {
+
+    /**
+     * 网格中心在多边形内部时填充（默认）
+     */
+    public static final int FILL_POLICY_CENTER = 0;
+    /**
+     * 网格与多边形有任意面积的重叠时填充
+     */
+    public static final int FILL_POLICY_ANY = 1;
+    /**
+     * 网格被多边形覆盖的面积比例不小于指定值时填充
+     */
+    public static final int FILL_POLICY_COVERAGE = 2;
+
+    /**
+     * 面积比较的容差，抵消浮点累加误差
+     */
+    private static final float COVERAGE_EPSILON = 1e-4f;
+
+    private int fillPolicy = FILL_POLICY_CENTER;
+    private float minCoverage = 0.5f;
+
+    private float[] crossX = new float[16];
+    private int[] crossDir = new int[16];
+
+    /**
+     * 边表：第i条边为 (x0, y0) -> (x1, y1)，覆盖[edgeFirstRow, edgeEndRow)行
+     */
+    private float[] edgeCoords = new float[64];
+    private int[] edgePolygon = new int[16];
+    private int[] edgeFirstRow = new int[16];
+    private int[] edgeEndRow = new int[16];
+    /**
+     * 按起始行分桶后的边，第row行开始的边为 sortedEdges[rowFirstEdge[row], rowFirstEdge[row + 1])
+     */
+    private int[] sortedEdges = new int[16];
+    private int[] rowFirstEdge = new int[1];
+    private int[] activeEdges = new int[16];
+    private float[] activeX = new float[16];
+    private int[] winding = new int[4];
+
+    /**
+     * 覆盖面积的累加缓冲区，每行 columns + 2 项，使用后清零
+     */
+    private float[] coverage = new float[0];
+    private float[] polygonCoords = new float[64];
+
+    /**
+     * 设置判断网格是否填充的规则
+     *
+     * @param policy      {@link #FILL_POLICY_CENTER}、{@link #FILL_POLICY_ANY} 或 {@link #FILL_POLICY_COVERAGE}
+     * @param minCoverage {@link #FILL_POLICY_COVERAGE}时的最小覆盖比例，取值(0, 1]
+     */
+    public void setFillPolicy(int policy, float minCoverage) {
+        if (policy != FILL_POLICY_CENTER && policy != FILL_POLICY_ANY && policy != FILL_POLICY_COVERAGE) {
+            throw new IllegalArgumentException("policy = " + policy);
+        }
+        if (policy == FILL_POLICY_COVERAGE && (minCoverage <= 0 || minCoverage > 1)) {
+            throw new IllegalArgumentException("minCoverage = " + minCoverage);
+        }
+        this.fillPolicy = policy;
+        this.minCoverage = minCoverage;
+    }
+
+    public int getFillPolicy() {
+        return fillPolicy;
+    }
+
+    public float getMinCoverage() {
+        return minCoverage;
+    }
+
+    /**
+     * 填充或擦除多边形覆盖的网格
+     *
+     * @param points     顶点坐标，依次为x0, y0, x1, y1...，最后一个点自动与第一个点相连
+     * @param pointCount 顶点数量
+     * @param cellWidth  网格宽度
+     * @param cellHeight 网格高度
+     * @param mask       目标网格
+     * @param fill       true填充，false擦除
+     */
+    public void fill(float[] points, int pointCount, float cellWidth, float cellHeight, GridMask mask, boolean fill) {
+        if (pointCount < 3 || cellWidth <= 0 || cellHeight <= 0) {
+            return;
+        }
+        if (fillPolicy != FILL_POLICY_CENTER) {
+            fillCoverage(points, pointCount, cellWidth, cellHeight, mask, fill);
+            return;
+        }
+        float minY = points[1];
+        float maxY = points[1];
+        for (int i = 1; i < pointCount; i++) {
+            float y = points[(i << 1) + 1];
+            if (y < minY) {
+                minY = y;
+            } else if (y > maxY) {
+                maxY = y;
+            }
+        }
+        //只处理网格中心落在多边形上下范围内的行
+        int firstRow = Math.max((int) Math.ceil(minY / cellHeight - 0.5f), 0);
+        int lastRow = Math.min((int) Math.ceil(maxY / cellHeight - 0.5f), mask.getRows());
+        for (int row = firstRow; row < lastRow; row++) {
+            fillRow(points, pointCount, (row + 0.5f) * cellHeight, row, cellWidth, mask, fill);
+        }
+    }
+
+    /**
+     * 填充或擦除多个多边形覆盖的网格，网格中心在任意一个多边形内部（非零环绕）即被处理。
+     * 按面积判断时分别计算每个多边形的覆盖面积，任意一个多边形满足条件即被处理
+     *
+     * @param polygons   顶点坐标与cellWidth、cellHeight单位相同
+     * @param cellWidth  网格宽度
+     * @param cellHeight 网格高度
+     * @param mask       目标网格
+     * @param fill       true填充，false擦除
+     */
+    public void fill(List<XyPolygon> polygons, float cellWidth, float cellHeight, GridMask mask, boolean fill) {
+        int rows = mask.getRows();
+        if (cellWidth <= 0 || cellHeight <= 0 || rows == 0) {
+            return;
+        }
+        if (fillPolicy != FILL_POLICY_CENTER) {
+            for (int p = 0, polygonCount = polygons.size(); p < polygonCount; p++) {
+                XyPolygon polygon = polygons.get(p);
+                int pointCount = polygon.size();
+                if (polygonCoords.length < pointCount * 2) {
+                    polygonCoords = new float[pointCount * 2];
+                }
+                for (int i = 0; i < pointCount; i++) {
+                    polygonCoords[i * 2] = polygon.getX(i);
+                    polygonCoords[i * 2 + 1] = polygon.getY(i);
+                }
+                fill(polygonCoords, pointCount, cellWidth, cellHeight, mask, fill);
+            }
+            return;
+        }
+        int polygonCount = polygons.size();
+        if (winding.length < polygonCount) {
+            winding = new int[polygonCount];
+        }
+        Arrays.fill(winding, 0, polygonCount, 0);
+        int edgeCount = buildEdges(polygons, cellHeight, rows);
+        if (edgeCount == 0) {
+            return;
+        }
+        //按起始行计数排序
+        if (rowFirstEdge.length < rows + 1) {
+            rowFirstEdge = new int[rows + 1];
+        }
+        Arrays.fill(rowFirstEdge, 0, rows + 1, 0);
+        for (int i = 0; i < edgeCount; i++) {
+            rowFirstEdge[edgeFirstRow[i]]++;
+        }
+        for (int row = 1; row < rows; row++) {
+            rowFirstEdge[row] += rowFirstEdge[row - 1];
+        }
+        rowFirstEdge[rows] = edgeCount;
+        if (sortedEdges.length < edgeCount) {
+            sortedEdges = new int[edgeCount];
+            activeEdges = new int[edgeCount];
+            activeX = new float[edgeCount];
+        }
+        //此时rowFirstEdge[row]为第row行的结束位置，倒序放入后变为开始位置
+        for (int i = edgeCount - 1; i >= 0; i--) {
+            sortedEdges[--rowFirstEdge[edgeFirstRow[i]]] = i;
+        }
+        int activeCount = 0;
+        for (int row = 0; row < rows; row++) {
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (edgeEndRow[activeEdges[i]] > row) {
+                    activeEdges[kept++] = activeEdges[i];
+                }
+            }
+            activeCount = kept;
+            for (int i = rowFirstEdge[row]; i < rowFirstEdge[row + 1]; i++) {
+                activeEdges[activeCount++] = sortedEdges[i];
+            }
+            if (activeCount == 0) {
+                continue;
+            }
+            sweepRow(activeCount, (row + 0.5f) * cellHeight, row, cellWidth, mask, fill);
+        }
+    }
+
+    /**
+     * 生成边表，水平边和不跨越任何网格中心的边被丢弃
+     *
+     * @return 边的数量
+     */
+    private int buildEdges(List<XyPolygon> polygons, float cellHeight, int rows) {
+        int edgeCount = 0;
+        for (int p = 0, polygonCount = polygons.size(); p < polygonCount; p++) {
+            XyPolygon polygon = polygons.get(p);
+            int pointCount = polygon.size();
+            if (pointCount < 3) {
+                continue;
+            }
+            float x0 = polygon.getX(pointCount - 1);
+            float y0 = polygon.getY(pointCount - 1);
+            for (int i = 0; i < pointCount; i++) {
+                float x1 = polygon.getX(i);
+                float y1 = polygon.getY(i);
+                if (y0 != y1) {
+                    //与fillRow相同的左闭右开规则：中心y满足 min <= y < max 的行
+                    int first = firstRowAtOrBelow(Math.min(y0, y1), cellHeight);
+                    int end = firstRowAtOrBelow(Math.max(y0, y1), cellHeight);
+                    first = Math.max(first, 0);
+                    end = Math.min(end, rows);
+                    if (first < end) {
+                        if (edgeCount == edgePolygon.length) {
+                            growEdges();
+                        }
+                        edgeCoords[edgeCount * 4] = x0;
+                        edgeCoords[edgeCount * 4 + 1] = y0;
+                        edgeCoords[edgeCount * 4 + 2] = x1;
+                        edgeCoords[edgeCount * 4 + 3] = y1;
+                        edgePolygon[edgeCount] = p;
+                        edgeFirstRow[edgeCount] = first;
+                        edgeEndRow[edgeCount] = end;
+                        edgeCount++;
+                    }
+                }
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        return edgeCount;
+    }
+
+    /**
+     * 网格中心y坐标不小于y的第一行，与扫描时中心坐标的计算方式一致，避免浮点误差导致边多算或漏算一行
+     */
+    private static int firstRowAtOrBelow(float y, float cellHeight) {
+        int row = (int) Math.ceil(y / cellHeight - 0.5f);
+        while ((row - 1 + 0.5f) * cellHeight >= y) {
+            row--;
+        }
+        while ((row + 0.5f) * cellHeight < y) {
+            row++;
+        }
+        return row;
+    }
+
+    private void sweepRow(int activeCount, float centerY, int row, float cellWidth, GridMask mask, boolean fill) {
+        //活动边按交点x排序，相邻两行的顺序基本不变，插入排序接近线性
+        for (int i = 0; i < activeCount; i++) {
+            int edge = activeEdges[i];
+            float x0 = edgeCoords[edge * 4], y0 = edgeCoords[edge * 4 + 1];
+            float x1 = edgeCoords[edge * 4 + 2], y1 = edgeCoords[edge * 4 + 3];
+            float x = x0 + (centerY - y0) * (x1 - x0) / (y1 - y0);
+            int j = i;
+            while (j > 0 && activeX[j - 1] > x) {
+                activeX[j] = activeX[j - 1];
+                activeEdges[j] = activeEdges[j - 1];
+                j--;
+            }
+            activeX[j] = x;
+            activeEdges[j] = edge;
+        }
+        int inside = 0;
+        float start = 0;
+        for (int i = 0; i < activeCount; i++) {
+            int edge = activeEdges[i];
+            int polygon = edgePolygon[edge];
+            int previous = winding[polygon];
+            winding[polygon] += edgeCoords[edge * 4 + 3] > edgeCoords[edge * 4 + 1] ? 1 : -1;
+            if (previous == 0 && winding[polygon] != 0) {
+                if (inside++ == 0) {
+                    start = activeX[i];
+                }
+            } else if (previous != 0 && winding[polygon] == 0) {
+                if (--inside == 0) {
+                    int from = (int) Math.ceil(start / cellWidth - 0.5f);
+                    int to = (int) Math.ceil(activeX[i] / cellWidth - 0.5f);
+                    mask.setSpan(row, from, to, fill);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按覆盖面积填充。坐标先换算为以网格为单位，自相交的多边形按环绕数的绝对值截断到1近似
+     */
+    private void fillCoverage(float[] points, int pointCount, float cellWidth, float cellHeight, GridMask mask, boolean fill) {
+        int rows = mask.getRows();
+        int columns = mask.getColumns();
+        float minY = points[1];
+        float maxY = points[1];
+        for (int i = 1; i < pointCount; i++) {
+            float y = points[(i << 1) + 1];
+            if (y < minY) {
+                minY = y;
+            } else if (y > maxY) {
+                maxY = y;
+            }
+        }
+        int firstRow = Math.max((int) Math.floor(minY / cellHeight), 0);
+        int lastRow = Math.min((int) Math.ceil(maxY / cellHeight), rows);
+        if (firstRow >= lastRow || columns == 0) {
+            return;
+        }
+        int stride = columns + 2;
+        int size = (lastRow - firstRow) * stride;
+        if (coverage.length < size) {
+            coverage = new float[size];
+        }
+        float x0 = points[(pointCount - 1) << 1] / cellWidth;
+        float y0 = points[((pointCount - 1) << 1) + 1] / cellHeight;
+        for (int i = 0; i < pointCount; i++) {
+            float x1 = points[i << 1] / cellWidth;
+            float y1 = points[(i << 1) + 1] / cellHeight;
+            addEdge(x0, y0, x1, y1, columns, firstRow, lastRow, stride);
+            x0 = x1;
+            y0 = y1;
+        }
+        float threshold = fillPolicy == FILL_POLICY_ANY ? COVERAGE_EPSILON : minCoverage - COVERAGE_EPSILON;
+        for (int row = firstRow; row < lastRow; row++) {
+            int base = (row - firstRow) * stride;
+            float area = 0;
+            int start = -1;
+            for (int c = 0; c < columns; c++) {
+                area += coverage[base + c];
+                coverage[base + c] = 0;
+                boolean inside = Math.min(Math.abs(area), 1) >= threshold;
+                if (inside && start < 0) {
+                    start = c;
+                } else if (!inside && start >= 0) {
+                    mask.setSpan(row, start, c, fill);
+                    start = -1;
+                }
+            }
+            if (start >= 0) {
+                mask.setSpan(row, start, columns, fill);
+            }
+            coverage[base + columns] = 0;
+            coverage[base + columns + 1] = 0;
+        }
+    }
+
+    /**
+     * 累加一条边的面积贡献。网格左侧的部分贴到x = 0、右侧的部分贴到x = columns：
+     * 一条边对其右侧所有网格的贡献只取决于它在每行的高度，贴边后不影响网格内的结果
+     */
+    private void addEdge(float x0, float y0, float x1, float y1, int columns, int firstRow, int lastRow, int stride) {
+        if (y0 == y1) {
+            return;
+        }
+        if ((x0 < 0 && x1 > 0) || (x0 > 0 && x1 < 0)) {
+            float y = y0 + (0 - x0) * (y1 - y0) / (x1 - x0);
+            addEdge(x0, y0, 0, y, columns, firstRow, lastRow, stride);
+            addEdge(0, y, x1, y1, columns, firstRow, lastRow, stride);
+            return;
+        }
+        if ((x0 < columns && x1 > columns) || (x0 > columns && x1 < columns)) {
+            float y = y0 + (columns - x0) * (y1 - y0) / (x1 - x0);
+            addEdge(x0, y0, columns, y, columns, firstRow, lastRow, stride);
+            addEdge(columns, y, x1, y1, columns, firstRow, lastRow, stride);
+            return;
+        }
+        x0 = Math.min(Math.max(x0, 0), columns);
+        x1 = Math.min(Math.max(x1, 0), columns);
+        float dir = 1;
+        if (y0 > y1) {
+            dir = -1;
+            float t = x0;
+            x0 = x1;
+            x1 = t;
+            t = y0;
+            y0 = y1;
+            y1 = t;
+        }
+        if (y1 <= firstRow || y0 >= lastRow) {
+            return;
+        }
+        float dxdy = (x1 - x0) / (y1 - y0);
+        float x = x0;
+        if (y0 < firstRow) {
+            x += (firstRow - y0) * dxdy;
+            y0 = firstRow;
+        }
+        int end = Math.min((int) Math.ceil(y1), lastRow);
+        for (int y = (int) Math.floor(y0); y < end; y++) {
+            float dy = Math.min(y + 1, y1) - Math.max(y, y0);
+            float next = Math.min(Math.max(x + dxdy * dy, 0), columns);
+            addSegment(x, next, dy * dir, (y - firstRow) * stride);
+            x = next;
+        }
+    }
+
+    /**
+     * 一行内从x到next的线段，d为带方向的高度。线段覆盖的网格分到其右侧的梯形面积，
+     * 剩余部分记在下一个网格，前缀和使其右侧的网格都得到完整的d
+     */
+    private void addSegment(float x, float next, float d, int base) {
+        float left = Math.min(x, next);
+        float right = Math.max(x, next);
+        float leftFloor = (float) Math.floor(left);
+        int leftIndex = (int) leftFloor;
+        int rightIndex = (int) Math.ceil(right);
+        if (rightIndex <= leftIndex + 1) {
+            //在同一个网格内
+            float middle = 0.5f * (x + next) - leftFloor;
+            coverage[base + leftIndex] += d - d * middle;
+            coverage[base + leftIndex + 1] += d * middle;
+            return;
+        }
+        float slope = 1 / (right - left);
+        float leftFraction = left - leftFloor;
+        float firstArea = 0.5f * slope * (1 - leftFraction) * (1 - leftFraction);
+        float rightFraction = right - rightIndex + 1;
+        float lastArea = 0.5f * slope * rightFraction * rightFraction;
+        coverage[base + leftIndex] += d * firstArea;
+        if (rightIndex == leftIndex + 2) {
+            coverage[base + leftIndex + 1] += d * (1 - firstArea - lastArea);
+        } else {
+            float secondArea = slope * (1.5f - leftFraction);
+            coverage[base + leftIndex + 1] += d * (secondArea - firstArea);
+            for (int i = leftIndex + 2; i < rightIndex - 1; i++) {
+                coverage[base + i] += d * slope;
+            }
+            float accumulated = secondArea + (rightIndex - leftIndex - 3) * slope;
+            coverage[base + rightIndex - 1] += d * (1 - accumulated - lastArea);
+        }
+        coverage[base + rightIndex] += d * lastArea;
+    }
+
+    private void growEdges() {
+        int length = edgePolygon.length << 1;
+        edgeCoords = Arrays.copyOf(edgeCoords, length * 4);
+        edgePolygon = Arrays.copyOf(edgePolygon, length);
+        edgeFirstRow = Arrays.copyOf(edgeFirstRow, length);
+        edgeEndRow = Arrays.copyOf(edgeEndRow, length);
+    }
+
+    private void fillRow(float[] points, int pointCount, float centerY, int row, float cellWidth, GridMask mask, boolean fill) {
+        int count = 0;
+        float x0 = points[(pointCount - 1) << 1];
+        float y0 = points[((pointCount - 1) << 1) + 1];
+        for (int i = 0; i < pointCount; i++) {
+            float x1 = points[i << 1];
+            float y1 = points[(i << 1) + 1];
+            //左闭右开，保证顶点恰好落在中心线上时只计一次
+            if ((y0 <= centerY && centerY < y1) || (y1 <= centerY && centerY < y0)) {
+                if (count == crossX.length) {
+                    grow();
+                }
+                float x = x0 + (centerY - y0) * (x1 - x0) / (y1 - y0);
+                int dir = y1 > y0 ? 1 : -1;
+                //插入排序，交点数量通常很少
+                int j = count;
+                while (j > 0 && crossX[j - 1] > x) {
+                    crossX[j] = crossX[j - 1];
+                    crossDir[j] = crossDir[j - 1];
+                    j--;
+                }
+                crossX[j] = x;
+                crossDir[j] = dir;
+                count++;
+            }
+            x0 = x1;
+            y0 = y1;
+        }
+
+        int winding = 0;
+        float start = 0;
+        for (int i = 0; i < count; i++) {
+            int previous = winding;
+            winding += crossDir[i];
+            if (previous == 0 && winding != 0) {
+                start = crossX[i];
+            } else if (previous != 0 && winding == 0) {
+                //中心点(c + 0.5) * cellWidth落在[start, end)内的列
+                int from = (int) Math.ceil(start / cellWidth - 0.5f);
+                int to = (int) Math.ceil(crossX[i] / cellWidth - 0.5f);
+                mask.setSpan(row, from, to, fill);
+            }
+        }
+    }
+
+    private void grow() {
+        int length = crossX.length << 1;
+        float[] newX = new float[length];
+        int[] newDir = new int[length];
+        System.arraycopy(crossX, 0, newX, 0, crossX.length);
+        System.arraycopy(crossDir, 0, newDir, 0, crossDir.length);
+        crossX = newX;
+        crossDir = newDir;
+    }
+}
@@ -0,0 +1,64 @@
+package com.cc.draw.grid;
+
+/**
+ * 笔画光栅化，将两个触摸采样点之间的线段经过的所有网格写入{@link GridMask}
+ * <p>
+ * 采用supercover规则：与线段有任何接触的网格（包括恰好经过网格角点的情况）都会被标记，
+ * 因此无论手指滑动多快都不会漏掉网格。线段在每一行内经过的列是连续的，
+ * 所以逐行计算列区间后按整段写入，而不是逐个网格修改。
+ */
+public class StrokeRasterizer {
+
+    private StrokeRasterizer() {
+    }
+
+    /**
+     * 填充或擦除线段(x0, y0) - (x1, y1)经过的网格
+     *
+     * @param cellWidth  网格宽度
+     * @param cellHeight 网格高度
+     * @param mask       目标网格
+     * @param fill       true填充，false擦除
+     */
+    public static void drawLine(float x0, float y0, float x1, float y1, float cellWidth, float cellHeight,
+                                GridMask mask, boolean fill) {
+        if (cellWidth <= 0 || cellHeight <= 0) {
+            return;
+        }
+        //转换为以网格为单位的坐标，并保证从上往下遍历
+        float ax = x0 / cellWidth;
+        float ay = y0 / cellHeight;
+        float bx = x1 / cellWidth;
+        float by = y1 / cellHeight;
+        if (ay > by) {
+            float t = ax;
+            ax = bx;
+            bx = t;
+            t = ay;
+            ay = by;
+            by = t;
+        }
+        //网格按闭区间计算，坐标恰好落在网格线上时两侧的网格都算经过
+        int firstRow = Math.max((int) Math.ceil(ay) - 1, 0);
+        int lastRow = Math.min((int) Math.floor(by), mask.getRows() - 1);
+        float dy = by - ay;
+        float dxdy = dy == 0 ? 0 : (bx - ax) / dy;
+        for (int row = firstRow; row <= lastRow; row++) {
+            float left;
+            float right;
+            if (dy == 0) {
+                left = Math.min(ax, bx);
+                right = Math.max(ax, bx);
+            } else {
+                //线段在当前行[row, row + 1]内的x范围
+                float top = Math.max(ay, row);
+                float bottom = Math.min(by, row + 1);
+                float xTop = ax + (top - ay) * dxdy;
+                float xBottom = ax + (bottom - ay) * dxdy;
+                left = Math.min(xTop, xBottom);
+                right = Math.max(xTop, xBottom);
+            }
+            mask.setSpan(row, (int) Math.ceil(left) - 1, (int) Math.floor(right) + 1, fill);
+        }
+    }
+}
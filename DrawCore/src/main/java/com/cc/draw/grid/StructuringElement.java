@@ -0,0 +1,157 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+
+/**
+ * 形态学运算的结构元素，见{@link GridMorphology}
+ * <p>
+ * 以原点为中心，按行存储：第i项表示行偏移 {@code getRowOffset(i)} 上列偏移 [{@code getFrom(i)}, {@code getTo(i)}]（闭区间）
+ * 内的网格属于结构元素。同一行可以有多段。
+ */
+public class StructuringElement {
+
+    private final int[] rowOffsets;
+    private final int[] froms;
+    private final int[] tos;
+
+    private StructuringElement(int[] rowOffsets, int[] froms, int[] tos) {
+        this.rowOffsets = rowOffsets;
+        this.froms = froms;
+        this.tos = tos;
+    }
+
+    /**
+     * 边长为 2 * radius + 1 的正方形，即8邻域
+     */
+    public static StructuringElement square(int radius) {
+        return rect(radius, radius);
+    }
+
+    /**
+     * 高 2 * rowRadius + 1、宽 2 * columnRadius + 1 的矩形
+     */
+    public static StructuringElement rect(int rowRadius, int columnRadius) {
+        checkRadius(rowRadius);
+        checkRadius(columnRadius);
+        int count = rowRadius * 2 + 1;
+        int[] rowOffsets = new int[count];
+        int[] froms = new int[count];
+        int[] tos = new int[count];
+        for (int i = 0; i < count; i++) {
+            rowOffsets[i] = i - rowRadius;
+            froms[i] = -columnRadius;
+            tos[i] = columnRadius;
+        }
+        return new StructuringElement(rowOffsets, froms, tos);
+    }
+
+    /**
+     * 十字形，radius为1时即4邻域
+     */
+    public static StructuringElement cross(int radius) {
+        checkRadius(radius);
+        int count = radius * 2 + 1;
+        int[] rowOffsets = new int[count];
+        int[] froms = new int[count];
+        int[] tos = new int[count];
+        for (int i = 0; i < count; i++) {
+            rowOffsets[i] = i - radius;
+            if (i == radius) {
+                froms[i] = -radius;
+                tos[i] = radius;
+            }
+        }
+        return new StructuringElement(rowOffsets, froms, tos);
+    }
+
+    /**
+     * 半径为radius的圆形，包含中心距离原点不超过radius的网格
+     */
+    public static StructuringElement disk(int radius) {
+        checkRadius(radius);
+        int count = radius * 2 + 1;
+        int[] rowOffsets = new int[count];
+        int[] froms = new int[count];
+        int[] tos = new int[count];
+        for (int i = 0; i < count; i++) {
+            int dy = i - radius;
+            int dx = (int) Math.floor(Math.sqrt((double) radius * radius - dy * dy));
+            rowOffsets[i] = dy;
+            froms[i] = -dx;
+            tos[i] = dx;
+        }
+        return new StructuringElement(rowOffsets, froms, tos);
+    }
+
+    /**
+     * 由网格图案自定义结构元素
+     *
+     * @param pattern      图案中填充的网格属于结构元素
+     * @param originRow    原点所在的行
+     * @param originColumn 原点所在的列
+     */
+    public static StructuringElement of(GridMask pattern, int originRow, int originColumn) {
+        int count = 0;
+        int[] rowOffsets = new int[8];
+        int[] froms = new int[8];
+        int[] tos = new int[8];
+        for (int r = 0; r < pattern.getRows(); r++) {
+            int start = pattern.nextSetBit(r, 0);
+            while (start >= 0) {
+                int end = pattern.nextClearBit(r, start);
+                if (count == rowOffsets.length) {
+                    rowOffsets = Arrays.copyOf(rowOffsets, count * 2);
+                    froms = Arrays.copyOf(froms, count * 2);
+                    tos = Arrays.copyOf(tos, count * 2);
+                }
+                rowOffsets[count] = r - originRow;
+                froms[count] = start - originColumn;
+                tos[count] = end - 1 - originColumn;
+                count++;
+                start = pattern.nextSetBit(r, end);
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("empty structuring element");
+        }
+        return new StructuringElement(Arrays.copyOf(rowOffsets, count), Arrays.copyOf(froms, count), Arrays.copyOf(tos, count));
+    }
+
+    private static void checkRadius(int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius = " + radius);
+        }
+    }
+
+    /**
+     * 关于原点对称后的结构元素，腐蚀时使用
+     */
+    StructuringElement reflect() {
+        int count = rowOffsets.length;
+        int[] rowOffsets = new int[count];
+        int[] froms = new int[count];
+        int[] tos = new int[count];
+        for (int i = 0; i < count; i++) {
+            rowOffsets[i] = -this.rowOffsets[i];
+            froms[i] = -this.tos[i];
+            tos[i] = -this.froms[i];
+        }
+        return new StructuringElement(rowOffsets, froms, tos);
+    }
+
+    public int size() {
+        return rowOffsets.length;
+    }
+
+    public int getRowOffset(int index) {
+        return rowOffsets[index];
+    }
+
+    public int getFrom(int index) {
+        return froms[index];
+    }
+
+    public int getTo(int index) {
+        return tos[index];
+    }
+}
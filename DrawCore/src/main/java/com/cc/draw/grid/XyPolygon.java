@@ -0,0 +1,178 @@
+package com.cc.draw.grid;
+
+import java.util.Arrays;
+
+/**
+ * 多边形模型，顶点按 x0, y0, x1, y1 ... 连续存放
+ * <p>
+ * 同时维护最左、最上、最右、最下的顶点索引。移动单个顶点时只在该顶点原本是边界点且向内移动时才重新扫描，
+ * 整体平移时边界点索引不变。
+ */
+public class XyPolygon {
+
+    public static final int NONE = -1;
+
+    private float[] coords = new float[0];
+    private int size;
+
+    private int leftMostIndex = NONE;
+    private int topMostIndex = NONE;
+    private int rightMostIndex = NONE;
+    private int bottomMostIndex = NONE;
+
+    public XyPolygon() {
+    }
+
+    /**
+     * @param coords 顶点坐标 x0, y0, x1, y1 ...
+     */
+    public XyPolygon(float... coords) {
+        setPoints(coords, coords.length / 2);
+    }
+
+    /**
+     * 复制构造
+     *
+     * @param other
+     */
+    public XyPolygon(XyPolygon other) {
+        setPoints(other.coords, other.size);
+    }
+
+    /**
+     * 设置顶点，坐标会被复制
+     *
+     * @param coords 顶点坐标 x0, y0, x1, y1 ...
+     * @param size   顶点数量
+     */
+    public void setPoints(float[] coords, int size) {
+        if (this.coords.length < size * 2) {
+            this.coords = new float[size * 2];
+        }
+        System.arraycopy(coords, 0, this.coords, 0, size * 2);
+        this.size = size;
+        updateBoundary();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float getX(int index) {
+        return coords[index * 2];
+    }
+
+    public float getY(int index) {
+        return coords[index * 2 + 1];
+    }
+
+    /**
+     * 移动一个顶点
+     */
+    public void setPoint(int index, float x, float y) {
+        if (index < 0 || index >= size) {
+            return;
+        }
+        float oldX = coords[index * 2];
+        float oldY = coords[index * 2 + 1];
+        coords[index * 2] = x;
+        coords[index * 2 + 1] = y;
+        //边界点向内移动时，新的边界点可能是其它任意顶点，只能重新扫描
+        if ((index == leftMostIndex && x > oldX) || (index == rightMostIndex && x < oldX)
+                || (index == topMostIndex && y > oldY) || (index == bottomMostIndex && y < oldY)) {
+            updateBoundary();
+            return;
+        }
+        updateBoundary(index);
+    }
+
+    /**
+     * 整体平移
+     */
+    public void offset(float dx, float dy) {
+        for (int i = 0; i < size; i++) {
+            coords[i * 2] += dx;
+            coords[i * 2 + 1] += dy;
+        }
+    }
+
+    public int getLeftMostIndex() {
+        return leftMostIndex;
+    }
+
+    public int getTopMostIndex() {
+        return topMostIndex;
+    }
+
+    public int getRightMostIndex() {
+        return rightMostIndex;
+    }
+
+    public int getBottomMostIndex() {
+        return bottomMostIndex;
+    }
+
+    /**
+     * 点是否在多边形内部（奇偶规则）
+     */
+    public boolean contains(float x, float y) {
+        return contains(coords, size, x, y);
+    }
+
+    /**
+     * 点是否在多边形内部（奇偶规则），统计水平射线 y 与各边在点右侧的交点个数
+     *
+     * @param coords 顶点坐标 x0, y0, x1, y1 ...
+     * @param size   顶点数量
+     */
+    public static boolean contains(float[] coords, int size, float x, float y) {
+        int cross = 0;
+        for (int i = 0; i < size; i++) {
+            int j = i + 1 == size ? 0 : i + 1;
+            float x1 = coords[i * 2], y1 = coords[i * 2 + 1];
+            float x2 = coords[j * 2], y2 = coords[j * 2 + 1];
+            //与射线平行，或交点在边的延长线上
+            if (y1 == y2 || y < Math.min(y1, y2) || y >= Math.max(y1, y2)) {
+                continue;
+            }
+            float crossX = (y - y1) * (x2 - x1) / (y2 - y1) + x1;
+            if (crossX > x) {
+                cross++;
+            }
+        }
+        return (cross & 1) == 1;
+    }
+
+    private void updateBoundary() {
+        if (size == 0) {
+            leftMostIndex = topMostIndex = rightMostIndex = bottomMostIndex = NONE;
+            return;
+        }
+        leftMostIndex = topMostIndex = rightMostIndex = bottomMostIndex = 0;
+        for (int i = 1; i < size; i++) {
+            updateBoundary(i);
+        }
+    }
+
+    private void updateBoundary(int index) {
+        float x = coords[index * 2];
+        float y = coords[index * 2 + 1];
+        if (getX(leftMostIndex) > x) {
+            leftMostIndex = index;
+        }
+        if (getX(rightMostIndex) < x) {
+            rightMostIndex = index;
+        }
+        if (getY(topMostIndex) > y) {
+            topMostIndex = index;
+        }
+        if (getY(bottomMostIndex) < y) {
+            bottomMostIndex = index;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "XyPolygon{" + Arrays.toString(Arrays.copyOf(coords, size * 2)) + '}';
+    }
+}
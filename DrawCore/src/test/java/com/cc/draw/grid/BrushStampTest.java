@@ -0,0 +1,54 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BrushStampTest {
+
+    @Test
+    public void stamp_diskSpans() {
+        GridMask mask = new GridMask(9, 9);
+        BrushStamp.disk(2).stamp(mask, 4, 4, true);
+        //半径2的圆形：1 + 3 + 5 + 3 + 1 格
+        assertEquals(13, mask.cardinality());
+        assertTrue(mask.get(2, 4));
+        assertFalse(mask.get(2, 3));
+        assertTrue(mask.get(4, 2));
+        BrushStamp.square(1).stamp(mask, 4, 4, false);
+        assertEquals(4, mask.cardinality());
+
+        //贴边时超出的部分被丢弃
+        mask.clearAll();
+        BrushStamp.square(2).stamp(mask, 0, 0, true);
+        assertEquals(9, mask.cardinality());
+    }
+
+    @Test
+    public void drawLine_matchesDilatedStroke() {
+        Random random = new Random(31);
+        GridMorphology morphology = new GridMorphology();
+        for (int n = 0; n < 200; n++) {
+            int radius = random.nextInt(6);
+            boolean disk = random.nextBoolean();
+            BrushStamp brush = disk ? BrushStamp.disk(radius) : BrushStamp.square(radius);
+            float x0 = random.nextFloat() * 640, y0 = random.nextFloat() * 360;
+            float x1 = random.nextBoolean() ? x0 : random.nextFloat() * 640;
+            float y1 = random.nextBoolean() ? y0 : random.nextFloat() * 360;
+
+            GridMask mask = new GridMask(36, 64);
+            brush.drawLine(x0, y0, x1, y1, 10, 10, mask, true);
+            GridMask expected = new GridMask(36, 64);
+            StrokeRasterizer.drawLine(x0, y0, x1, y1, 10, 10, expected, true);
+            morphology.dilate(expected, disk ? StructuringElement.disk(radius) : StructuringElement.square(radius));
+            assertEquals(expected, mask);
+
+            GridMask erased = new GridMask(36, 64);
+            erased.setAll();
+            brush.drawLine(x0, y0, x1, y1, 10, 10, erased, false);
+            assertEquals(36 * 64 - expected.cardinality(), erased.cardinality());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CellRectMergerTest {
+
+    @Test
+    public void merge_fullGridIsOneRect() {
+        GridMask mask = new GridMask(72, 128);
+        mask.setAll();
+        CellRectMerger merger = new CellRectMerger();
+        assertEquals(1, merger.merge(mask));
+        assertArrayEquals(new int[]{0, 0, 128, 72}, copy(merger));
+    }
+
+    @Test
+    public void merge_emptyGrid() {
+        assertEquals(0, new CellRectMerger().merge(new GridMask(10, 10)));
+    }
+
+    @Test
+    public void merge_coversEveryFilledCellExactlyOnce() {
+        GridMask mask = new GridMask(20, 70);
+        mask.setRect(2, 3, 10, 66);
+        mask.clearRect(4, 10, 6, 20);
+        mask.set(15, 69);
+        mask.setSpan(18, 0, 70);
+        CellRectMerger merger = new CellRectMerger();
+        int count = merger.merge(mask);
+
+        int[][] hits = new int[20][70];
+        int[] rects = merger.getRects();
+        for (int i = 0; i < count; i++) {
+            for (int r = rects[i * 4 + 1]; r < rects[i * 4 + 3]; r++) {
+                for (int c = rects[i * 4]; c < rects[i * 4 + 2]; c++) {
+                    hits[r][c]++;
+                }
+            }
+        }
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 70; c++) {
+                assertEquals(mask.get(r, c) ? 1 : 0, hits[r][c]);
+            }
+        }
+        //上下两块完整区域 + 挖空行的左右两块 + 单个网格 + 整行
+        assertEquals(6, count);
+    }
+
+    @Test
+    public void merge_clippedToRange() {
+        GridMask mask = new GridMask(10, 10);
+        mask.setAll();
+        CellRectMerger merger = new CellRectMerger();
+        assertEquals(1, merger.merge(mask, 2, 3, 5, 7));
+        assertArrayEquals(new int[]{3, 2, 7, 5}, copy(merger));
+    }
+
+    private static int[] copy(CellRectMerger merger) {
+        int[] result = new int[merger.getCount() * 4];
+        System.arraycopy(merger.getRects(), 0, result, 0, result.length);
+        return result;
+    }
+}
@@ -0,0 +1,119 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ComponentLabelerTest {
+
+    @Test
+    public void label_statistics() {
+        GridMask mask = new GridMask(12, 20);
+        mask.setRect(1, 2, 3, 5);
+        mask.setRect(6, 10, 9, 20);
+        mask.set(3, 5);
+        ComponentLabeler labeler = new ComponentLabeler();
+        assertEquals(2, labeler.label(mask));
+        assertEquals(7, labeler.getCellCount(0));
+        assertEquals(1, labeler.getTop(0));
+        assertEquals(4, labeler.getBottom(0));
+        assertEquals(6, labeler.getRight(0));
+        assertEquals(30, labeler.getCellCount(1));
+        assertEquals(7.5, labeler.getCentroidRow(1), 1e-9);
+        assertEquals(15, labeler.getCentroidColumn(1), 1e-9);
+        assertEquals(1, labeler.getLabel(7, 19));
+        assertEquals(-1, labeler.getLabel(0, 0));
+
+        //(3,5)只与(2,4)对角相邻
+        assertEquals(3, new ComponentLabeler(ComponentLabeler.CONNECTIVITY_4).label(mask));
+    }
+
+    @Test
+    public void label_matchesFloodFill() {
+        Random random = new Random(11);
+        for (int connectivity : new int[]{ComponentLabeler.CONNECTIVITY_4, ComponentLabeler.CONNECTIVITY_8}) {
+            GridMask mask = new GridMask(36, 130);
+            for (int i = 0; i < 1800; i++) {
+                mask.set(random.nextInt(36), random.nextInt(130));
+            }
+            ComponentLabeler labeler = new ComponentLabeler(connectivity);
+            labeler.label(mask);
+            assertSameComponents(mask, labeler, connectivity);
+        }
+    }
+
+    @Test
+    public void update_matchesFullRelabel() {
+        Random random = new Random(13);
+        for (int connectivity : new int[]{ComponentLabeler.CONNECTIVITY_4, ComponentLabeler.CONNECTIVITY_8}) {
+            GridMask mask = new GridMask(72, 128);
+            for (int i = 0; i < 2000; i++) {
+                mask.set(random.nextInt(72), random.nextInt(128));
+            }
+            ComponentLabeler incremental = new ComponentLabeler(connectivity);
+            incremental.label(mask);
+            for (int n = 0; n < 200; n++) {
+                int top = random.nextInt(70);
+                int bottom = top + 1 + random.nextInt(3);
+                int left = random.nextInt(120);
+                mask.setRect(top, left, bottom, left + 1 + random.nextInt(8), random.nextBoolean());
+                incremental.update(mask, top, bottom);
+
+                ComponentLabeler full = new ComponentLabeler(connectivity);
+                assertEquals(full.label(mask), incremental.getCount());
+                for (int label = 0; label < full.getCount(); label++) {
+                    assertEquals(full.getCellCount(label), incremental.getCellCount(label));
+                    assertEquals(full.getTop(label), incremental.getTop(label));
+                    assertEquals(full.getLeft(label), incremental.getLeft(label));
+                    assertEquals(full.getBottom(label), incremental.getBottom(label));
+                    assertEquals(full.getRight(label), incremental.getRight(label));
+                    assertEquals(full.getCentroidRow(label), incremental.getCentroidRow(label), 1e-9);
+                    assertEquals(full.getCentroidColumn(label), incremental.getCentroidColumn(label), 1e-9);
+                }
+            }
+            assertSameComponents(mask, incremental, connectivity);
+        }
+    }
+
+    private static void assertSameComponents(GridMask mask, ComponentLabeler labeler, int connectivity) {
+        int rows = mask.getRows(), columns = mask.getColumns();
+        int[][] flood = new int[rows][columns];
+        int count = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (!mask.get(r, c) || flood[r][c] != 0) {
+                    continue;
+                }
+                count++;
+                ArrayDeque<int[]> queue = new ArrayDeque<>();
+                queue.add(new int[]{r, c});
+                flood[r][c] = count;
+                while (!queue.isEmpty()) {
+                    int[] cell = queue.poll();
+                    for (int dr = -1; dr <= 1; dr++) {
+                        for (int dc = -1; dc <= 1; dc++) {
+                            if (connectivity == ComponentLabeler.CONNECTIVITY_4 && dr != 0 && dc != 0) {
+                                continue;
+                            }
+                            int nr = cell[0] + dr, nc = cell[1] + dc;
+                            if (mask.get(nr, nc) && flood[nr][nc] == 0) {
+                                flood[nr][nc] = count;
+                                queue.add(new int[]{nr, nc});
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(count, labeler.getCount());
+        //编号顺序与按行扫描遇到的顺序一致
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                assertEquals(flood[r][c] - 1, labeler.getLabel(r, c));
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ContourTracerTest {
+
+    @Test
+    public void trace_singleCell() {
+        GridMask mask = new GridMask(3, 3);
+        mask.set(1, 1);
+        ContourTracer tracer = new ContourTracer();
+        assertEquals(1, tracer.trace(mask, 0, null));
+        assertFalse(tracer.isHole(0));
+        assertEquals(-1, tracer.getComponent(0));
+        assertEquals(4, tracer.getPointCount(0));
+        //从左上角开始顺时针
+        assertPoint(tracer, 0, 0, 1, 1);
+        assertPoint(tracer, 0, 1, 2, 1);
+        assertPoint(tracer, 0, 2, 2, 2);
+        assertPoint(tracer, 0, 3, 1, 2);
+    }
+
+    @Test
+    public void trace_ringWithHole() {
+        GridMask mask = new GridMask(6, 6);
+        mask.setRect(0, 0, 5, 5);
+        mask.clear(2, 2);
+        ComponentLabeler labeler = new ComponentLabeler();
+        labeler.label(mask);
+        ContourTracer tracer = new ContourTracer();
+        assertEquals(2, tracer.trace(mask, 0, labeler));
+        assertFalse(tracer.isHole(0));
+        assertEquals(4, tracer.getPointCount(0));
+        assertTrue(tracer.isHole(1));
+        assertEquals(4, tracer.getPointCount(1));
+        assertEquals(0, tracer.getComponent(0));
+        assertEquals(0, tracer.getComponent(1));
+
+        XyPolygon outer = tracer.getPolygon(0, 10, 10);
+        assertTrue(outer.contains(25, 25));
+        assertFalse(outer.contains(55, 25));
+        XyPolygon hole = tracer.getPolygon(1, 10, 10);
+        assertTrue(hole.contains(25, 25));
+        assertFalse(hole.contains(15, 25));
+    }
+
+    @Test
+    public void trace_diagonalCellsFollowConnectivity() {
+        GridMask mask = new GridMask(2, 2);
+        mask.set(0, 0);
+        mask.set(1, 1);
+        ContourTracer tracer8 = new ContourTracer(ComponentLabeler.CONNECTIVITY_8);
+        assertEquals(1, tracer8.trace(mask, 0, null));
+        assertEquals(8, tracer8.getPointCount(0));
+
+        ContourTracer tracer4 = new ContourTracer(ComponentLabeler.CONNECTIVITY_4);
+        assertEquals(2, tracer4.trace(mask, 0, null));
+        assertEquals(4, tracer4.getPointCount(0));
+        assertEquals(4, tracer4.getPointCount(1));
+    }
+
+    @Test
+    public void trace_contoursMatchMask() {
+        Random random = new Random(17);
+        for (int connectivity : new int[]{ComponentLabeler.CONNECTIVITY_4, ComponentLabeler.CONNECTIVITY_8}) {
+            GridMask mask = new GridMask(30, 70);
+            for (int i = 0; i < 900; i++) {
+                mask.set(random.nextInt(30), random.nextInt(70));
+            }
+            ComponentLabeler labeler = new ComponentLabeler(connectivity);
+            labeler.label(mask);
+            ContourTracer tracer = new ContourTracer(connectivity);
+            int count = tracer.trace(mask, 0, labeler);
+            int outer = 0;
+            for (int i = 0; i < count; i++) {
+                if (!tracer.isHole(i)) {
+                    outer++;
+                }
+            }
+            //每个区域恰好一个外轮廓
+            assertEquals(labeler.getCount(), outer);
+            //网格中心被奇数个轮廓包围时为填充
+            for (int r = 0; r < 30; r++) {
+                for (int c = 0; c < 70; c++) {
+                    int inside = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (tracer.getPolygon(i, 1, 1).contains(c + 0.5f, r + 0.5f)) {
+                            inside++;
+                        }
+                    }
+                    assertEquals(mask.get(r, c), (inside & 1) == 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void trace_simplifyStaircase() {
+        //斜向的阶梯
+        GridMask mask = new GridMask(20, 20);
+        for (int r = 0; r < 20; r++) {
+            mask.setSpan(r, 0, r + 1);
+        }
+        ContourTracer tracer = new ContourTracer();
+        tracer.trace(mask, 0, null);
+        assertEquals(42, tracer.getPointCount(0));
+        tracer.trace(mask, 1, null);
+        assertEquals(3, tracer.getPointCount(0));
+    }
+
+    private static void assertPoint(ContourTracer tracer, int contour, int index, float x, float y) {
+        assertEquals(x, tracer.getX(contour, index), 0);
+        assertEquals(y, tracer.getY(contour, index), 0);
+    }
+}
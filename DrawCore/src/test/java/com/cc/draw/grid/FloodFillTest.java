@@ -0,0 +1,98 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FloodFillTest {
+
+    @Test
+    public void fill_insideOutline() {
+        GridMask mask = new GridMask(10, 80);
+        //第2~7行、第3~69列的矩形边框
+        mask.setRect(2, 3, 8, 70);
+        mask.clearRect(3, 4, 7, 69);
+        FloodFill floodFill = new FloodFill();
+        assertEquals(4 * 65, floodFill.fill(mask, 5, 40));
+        GridMask expected = new GridMask(10, 80);
+        expected.setRect(2, 3, 8, 70);
+        assertEquals(expected, mask);
+        assertEquals(3, floodFill.getTop());
+        assertEquals(4, floodFill.getLeft());
+        assertEquals(7, floodFill.getBottom());
+        assertEquals(69, floodFill.getRight());
+
+        //点击已填充的网格时擦除整个区域
+        assertEquals(6 * 67, floodFill.fill(mask, 2, 3));
+        assertTrue(mask.isEmpty());
+        assertEquals(0, floodFill.fill(mask, 10, 0));
+    }
+
+    @Test
+    public void fill_diagonalGapFollowsConnectivity() {
+        //对角线把网格分成两半，对角相接处只有8连通才能穿过
+        GridMask mask = new GridMask(8, 8);
+        for (int i = 0; i < 8; i++) {
+            mask.set(i, i);
+        }
+        GridMask copy = new GridMask(mask);
+        assertEquals(28, new FloodFill(ComponentLabeler.CONNECTIVITY_4).fill(mask, 7, 0));
+        assertEquals(56, new FloodFill(ComponentLabeler.CONNECTIVITY_8).fill(copy, 7, 0));
+    }
+
+    @Test
+    public void fill_entireGrid() {
+        GridMask mask = new GridMask(72, 128);
+        FloodFill floodFill = new FloodFill();
+        assertEquals(72 * 128, floodFill.fill(mask, 30, 90));
+        assertEquals(72 * 128, mask.cardinality());
+    }
+
+    @Test
+    public void fill_matchesQueueFill() {
+        Random random = new Random(29);
+        for (int connectivity : new int[]{ComponentLabeler.CONNECTIVITY_4, ComponentLabeler.CONNECTIVITY_8}) {
+            FloodFill floodFill = new FloodFill(connectivity);
+            for (int n = 0; n < 20; n++) {
+                GridMask mask = new GridMask(36, 130);
+                for (int i = 0; i < 2000; i++) {
+                    mask.set(random.nextInt(36), random.nextInt(130));
+                }
+                int row = random.nextInt(36), column = random.nextInt(130);
+                GridMask expected = queueFill(mask, row, column, connectivity);
+                floodFill.fill(mask, row, column);
+                assertEquals(expected, mask);
+            }
+        }
+    }
+
+    private static GridMask queueFill(GridMask mask, int row, int column, int connectivity) {
+        GridMask result = new GridMask(mask);
+        boolean region = mask.get(row, column);
+        boolean[][] visited = new boolean[mask.getRows()][mask.getColumns()];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{row, column});
+        visited[row][column] = true;
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            result.set(cell[0], cell[1], !region);
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (connectivity == ComponentLabeler.CONNECTIVITY_4 && dr != 0 && dc != 0) {
+                        continue;
+                    }
+                    int nr = cell[0] + dr, nc = cell[1] + dc;
+                    if (nr >= 0 && nr < mask.getRows() && nc >= 0 && nc < mask.getColumns()
+                            && !visited[nr][nc] && mask.get(nr, nc) == region) {
+                        visited[nr][nc] = true;
+                        queue.add(new int[]{nr, nc});
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GridAreaCodecTest {
+
+    @Test
+    public void legacy_matchesOldFormat() {
+        GridMask mask = GridAreaCodec.fromLegacy("0,0,0,0,4032,8160,8160,8064,7680,2048,0,0", 20);
+        assertEquals(12, mask.getRows());
+        //4032 = 0b00000000111111000000，第8~13列
+        assertTrue(mask.isSpanSet(4, 8, 14));
+        assertFalse(mask.get(4, 7));
+        assertFalse(mask.get(4, 14));
+        assertEquals("0,0,0,0,4032,8160,8160,8064,7680,2048,0,0", GridAreaCodec.toLegacy(mask));
+    }
+
+    @Test
+    public void packedAndRle_roundTripWideGrids() {
+        Random random = new Random(1);
+        int[][] sizes = {{1, 1}, {12, 20}, {36, 64}, {72, 128}, {5, 130}, {3, 63}, {0, 7}};
+        for (int[] size : sizes) {
+            GridMask mask = new GridMask(size[0], size[1]);
+            for (int i = 0; i < size[0] * size[1] / 3; i++) {
+                mask.set(random.nextInt(size[0]), random.nextInt(size[1]));
+            }
+            assertEquals(mask, GridAreaCodec.decode(GridAreaCodec.encode(mask, GridAreaCodec.FORMAT_PACKED)));
+            assertEquals(mask, GridAreaCodec.decode(GridAreaCodec.encode(mask, GridAreaCodec.FORMAT_RLE)));
+            assertEquals(mask, GridAreaCodec.fromText(GridAreaCodec.toText(mask), 0));
+        }
+    }
+
+    @Test
+    public void encode_picksRleForSparseMasks() {
+        GridMask mask = new GridMask(72, 128);
+        mask.setRect(10, 10, 20, 90);
+        byte[] data = GridAreaCodec.encode(mask);
+        assertEquals(GridAreaCodec.FORMAT_RLE, data[2]);
+        assertTrue(data.length < 72 * 128 / 8);
+        assertEquals(mask, GridAreaCodec.decode(data));
+    }
+
+    @Test
+    public void decode_intoExistingMask() {
+        GridMask source = new GridMask(4, 70);
+        source.setSpan(2, 60, 70);
+        GridMask target = new GridMask(4, 70);
+        target.set(0, 0);
+        GridAreaCodec.decode(GridAreaCodec.encode(source), target);
+        assertEquals(source, target);
+    }
+
+    @Test
+    public void base64_roundTrip() {
+        for (int length = 0; length < 10; length++) {
+            byte[] data = new byte[length];
+            new Random(length).nextBytes(data);
+            assertArrayEquals(data, GridAreaCodec.fromBase64(GridAreaCodec.toBase64(data)));
+        }
+        assertEquals("R3JpZA==", GridAreaCodec.toBase64("Grid".getBytes()));
+    }
+
+    @Test
+    public void decode_rejectsBadHeaderBeforeAllocating() {
+        //'G', 版本1, 格式, 行数65535, 列数65535（varint 0xFF 0xFF 0x03）
+        byte[][] headers = {
+                {'G', 1, GridAreaCodec.FORMAT_RLE, (byte) 0xFF, (byte) 0xFF, 3, (byte) 0xFF, (byte) 0xFF, 3, 0},
+                {'G', 1, GridAreaCodec.FORMAT_PACKED, 100, 100, 0},
+                {'G', 1, 7, 1, 1, 0},
+        };
+        for (byte[] data : headers) {
+            try {
+                GridAreaCodec.decode(data);
+                fail();
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsGarbage() {
+        GridAreaCodec.decode(new byte[]{1, 2, 3, 4, 5});
+    }
+}
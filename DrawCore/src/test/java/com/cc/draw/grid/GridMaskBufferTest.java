@@ -0,0 +1,86 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class GridMaskBufferTest {
+
+    @Test
+    public void publish_writesHeaderAndWords() {
+        GridMask mask = new GridMask(3, 70);
+        mask.set(2, 69);
+        GridMaskBuffer maskBuffer = new GridMaskBuffer();
+        assertTrue(maskBuffer.publish(mask));
+
+        ByteBuffer buffer = maskBuffer.getBuffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(GridMaskBuffer.MAGIC, buffer.getInt(GridMaskBuffer.OFFSET_MAGIC));
+        assertEquals('G', buffer.get(0));
+        assertEquals(3, buffer.getInt(GridMaskBuffer.OFFSET_ROWS));
+        assertEquals(70, buffer.getInt(GridMaskBuffer.OFFSET_COLUMNS));
+        assertEquals(2, buffer.getInt(GridMaskBuffer.OFFSET_WORDS_PER_ROW));
+        assertEquals(1L << 5, buffer.getLong(GridMaskBuffer.HEADER_SIZE + 5 * 8));
+        long generation = buffer.getLong(GridMaskBuffer.OFFSET_GENERATION);
+        assertEquals(0, generation & 1);
+        assertEquals(maskBuffer.getGeneration(), generation);
+    }
+
+    @Test
+    public void publish_onlyBumpsGenerationOnChange() {
+        GridMask mask = new GridMask(4, 8);
+        GridMaskBuffer maskBuffer = new GridMaskBuffer();
+        maskBuffer.publish(mask);
+        long generation = maskBuffer.getGeneration();
+
+        assertFalse(maskBuffer.publish(mask));
+        mask.set(1, 1);
+        mask.clear(1, 1);
+        assertFalse(maskBuffer.publish(mask));
+        assertEquals(generation, maskBuffer.getGeneration());
+
+        mask.set(3, 7);
+        assertTrue(maskBuffer.publish(mask));
+        assertEquals(generation + 2, maskBuffer.getGeneration());
+        assertEquals(1L << 7, maskBuffer.getBuffer().getLong(GridMaskBuffer.HEADER_SIZE + 3 * 8));
+    }
+
+    @Test
+    public void publish_resizeWritesHeaderAndDataInOneCycle() {
+        GridMaskBuffer maskBuffer = new GridMaskBuffer();
+        maskBuffer.publish(new GridMask(4, 130));
+        long generation = maskBuffer.getGeneration();
+
+        GridMask smaller = new GridMask(3, 70);
+        smaller.set(2, 69);
+        assertTrue(maskBuffer.publish(smaller));
+        assertEquals(generation + 2, maskBuffer.getGeneration());
+        ByteBuffer buffer = maskBuffer.getBuffer();
+        assertEquals(generation + 2, buffer.getLong(GridMaskBuffer.OFFSET_GENERATION));
+        assertEquals(3, buffer.getInt(GridMaskBuffer.OFFSET_ROWS));
+        assertEquals(70, buffer.getInt(GridMaskBuffer.OFFSET_COLUMNS));
+        assertEquals(2, buffer.getInt(GridMaskBuffer.OFFSET_WORDS_PER_ROW));
+        assertEquals(1L << 5, buffer.getLong(GridMaskBuffer.HEADER_SIZE + 5 * 8));
+    }
+
+    @Test
+    public void publish_largerMaskDetachesOldBuffer() {
+        GridMaskBuffer maskBuffer = new GridMaskBuffer();
+        maskBuffer.publish(new GridMask(4, 8));
+        ByteBuffer old = maskBuffer.getBuffer();
+
+        GridMask smaller = new GridMask(2, 8);
+        smaller.set(1, 0);
+        maskBuffer.publish(smaller);
+        assertSame(old, maskBuffer.getBuffer());
+        assertEquals(2, old.getInt(GridMaskBuffer.OFFSET_ROWS));
+
+        maskBuffer.publish(new GridMask(72, 128));
+        assertNotSame(old, maskBuffer.getBuffer());
+        assertEquals(GridMaskBuffer.FLAG_DETACHED, old.getInt(GridMaskBuffer.OFFSET_FLAGS));
+        assertEquals(0, maskBuffer.getBuffer().getInt(GridMaskBuffer.OFFSET_FLAGS));
+        assertEquals(72, maskBuffer.getBuffer().getInt(GridMaskBuffer.OFFSET_ROWS));
+    }
+}
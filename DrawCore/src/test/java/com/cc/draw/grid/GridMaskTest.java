@@ -0,0 +1,98 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GridMaskTest {
+
+    @Test
+    public void cell_setClearToggle() {
+        GridMask mask = new GridMask(3, 70);
+        mask.set(1, 65);
+        assertTrue(mask.get(1, 65));
+        assertEquals(1, mask.cardinality());
+        mask.toggle(1, 65);
+        assertFalse(mask.get(1, 65));
+        mask.set(2, 0, true);
+        mask.clear(2, 0);
+        assertTrue(mask.isEmpty());
+    }
+
+    @Test
+    public void cell_outOfRangeIgnored() {
+        GridMask mask = new GridMask(2, 2);
+        mask.set(-1, 0);
+        mask.set(0, 2);
+        mask.set(2, 1);
+        assertTrue(mask.isEmpty());
+        assertFalse(mask.get(5, 5));
+    }
+
+    @Test
+    public void span_crossesWordBoundary() {
+        GridMask mask = new GridMask(1, 200);
+        mask.setSpan(0, 60, 130);
+        assertEquals(70, mask.cardinality());
+        assertFalse(mask.get(0, 59));
+        assertTrue(mask.get(0, 60));
+        assertTrue(mask.get(0, 129));
+        assertFalse(mask.get(0, 130));
+        mask.clearSpan(0, 64, 128);
+        assertEquals(6, mask.cardinality());
+        mask.toggleSpan(0, 0, 200);
+        assertEquals(194, mask.cardinality());
+    }
+
+    @Test
+    public void span_clampedToGrid() {
+        GridMask mask = new GridMask(1, 64);
+        mask.setSpan(0, -10, 100);
+        assertEquals(64, mask.cardinality());
+        assertEquals(-1L, mask.getWord(0, 0));
+    }
+
+    @Test
+    public void search_previousBits() {
+        GridMask mask = new GridMask(1, 200);
+        mask.setSpan(0, 60, 130);
+        assertEquals(129, mask.previousSetBit(0, 199));
+        assertEquals(70, mask.previousSetBit(0, 70));
+        assertEquals(-1, mask.previousSetBit(0, 59));
+        assertEquals(59, mask.previousClearBit(0, 129));
+        assertEquals(140, mask.previousClearBit(0, 140));
+        mask.setSpan(0, 0, 60);
+        assertEquals(-1, mask.previousClearBit(0, 129));
+    }
+
+    @Test
+    public void rect_fillsRows() {
+        GridMask mask = new GridMask(72, 128);
+        mask.setRect(10, 20, 30, 100);
+        assertEquals(20 * 80, mask.cardinality());
+        assertEquals(80, mask.cardinality(10));
+        assertEquals(0, mask.cardinality(30));
+        mask.setAll();
+        assertEquals(72 * 128, mask.cardinality());
+    }
+
+    @Test
+    public void resize_reusesStorageWhenItFits() {
+        GridMask mask = new GridMask(72, 128);
+        mask.setAll();
+        assertTrue(mask.resize(36, 64));
+        assertTrue(mask.isEmpty());
+        mask.setRect(0, 0, 2, 64);
+        assertEquals(128, mask.cardinality());
+
+        GridMask expected = new GridMask(36, 64);
+        expected.setRect(0, 0, 2, 64);
+        assertEquals(expected, mask);
+        assertEquals(expected.hashCode(), mask.hashCode());
+        assertEquals(expected, new GridMask(mask));
+
+        assertFalse(mask.resize(100, 300));
+        assertTrue(mask.isEmpty());
+        assertEquals(5, mask.getWordsPerRow());
+    }
+}
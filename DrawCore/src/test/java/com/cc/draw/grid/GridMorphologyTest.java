@@ -0,0 +1,109 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GridMorphologyTest {
+
+    @Test
+    public void dilateErode_matchBruteForce() {
+        Random random = new Random(7);
+        GridMask pattern = new GridMask(3, 5);
+        pattern.set(0, 4);
+        pattern.setSpan(1, 0, 3);
+        pattern.set(2, 1);
+        StructuringElement[] elements = {StructuringElement.square(1), StructuringElement.cross(2),
+                StructuringElement.disk(3), StructuringElement.rect(0, 70), StructuringElement.of(pattern, 1, 1)};
+        GridMorphology morphology = new GridMorphology();
+        for (int[] size : new int[][]{{12, 20}, {9, 64}, {7, 130}}) {
+            GridMask mask = new GridMask(size[0], size[1]);
+            for (int i = 0; i < size[0] * size[1] / 6; i++) {
+                mask.set(random.nextInt(size[0]), random.nextInt(size[1]));
+            }
+            for (StructuringElement element : elements) {
+                GridMask dilated = new GridMask(mask);
+                morphology.dilate(dilated, element);
+                assertEquals(bruteForce(mask, element, true), dilated);
+
+                GridMask eroded = new GridMask(mask);
+                morphology.erode(eroded, element);
+                assertEquals(bruteForce(mask, element, false), eroded);
+            }
+        }
+    }
+
+    @Test
+    public void open_removesSpecklesAndClose_fillsGaps() {
+        GridMorphology morphology = new GridMorphology();
+        GridMask mask = new GridMask(72, 128);
+        mask.setRect(10, 10, 30, 100);
+        mask.set(50, 50);
+        morphology.open(mask, StructuringElement.square(1));
+        GridMask expected = new GridMask(72, 128);
+        expected.setRect(10, 10, 30, 100);
+        assertEquals(expected, mask);
+
+        mask.clearSpan(20, 40, 41);
+        morphology.close(mask, StructuringElement.square(1));
+        assertEquals(expected, mask);
+    }
+
+    @Test
+    public void erode_keepsRegionsTouchingTheBorder() {
+        GridMask mask = new GridMask(12, 20);
+        mask.setAll();
+        new GridMorphology().erode(mask, StructuringElement.square(2));
+        assertEquals(12 * 20, mask.cardinality());
+    }
+
+    @Test
+    public void fillHoles_fillsEnclosedAreasOnly() {
+        GridMask mask = new GridMask(20, 130);
+        //闭合的环，内部是孔洞
+        mask.setRect(2, 60, 12, 75);
+        mask.clearRect(4, 62, 10, 73);
+        //螺旋形的缺口通向外部，不是孔洞
+        mask.setRect(14, 2, 19, 20);
+        mask.clearRect(15, 3, 18, 19);
+        mask.clearSpan(14, 10, 11);
+        //只在对角相邻处连通到外部，仍然是孔洞
+        mask.setRect(0, 100, 3, 103);
+        mask.clear(1, 101);
+        mask.clear(0, 100);
+        GridMask expected = new GridMask(mask);
+        expected.setRect(4, 62, 10, 73);
+        expected.set(1, 101);
+        new GridMorphology().fillHoles(mask);
+        assertEquals(expected, mask);
+    }
+
+    private static GridMask bruteForce(GridMask mask, StructuringElement element, boolean dilate) {
+        GridMask result = new GridMask(mask.getRows(), mask.getColumns());
+        for (int r = 0; r < mask.getRows(); r++) {
+            for (int c = 0; c < mask.getColumns(); c++) {
+                boolean value = !dilate;
+                for (int i = 0; i < element.size(); i++) {
+                    for (int dx = element.getFrom(i); dx <= element.getTo(i); dx++) {
+                        int dy = element.getRowOffset(i);
+                        if (dilate) {
+                            int sr = r - dy, sc = c - dx;
+                            if (sr >= 0 && sr < mask.getRows() && sc >= 0 && sc < mask.getColumns() && mask.get(sr, sc)) {
+                                value = true;
+                            }
+                        } else {
+                            int sr = r + dy, sc = c + dx;
+                            if (sr >= 0 && sr < mask.getRows() && sc >= 0 && sc < mask.getColumns() && !mask.get(sr, sc)) {
+                                value = false;
+                            }
+                        }
+                    }
+                }
+                result.set(r, c, value);
+            }
+        }
+        return result;
+    }
+}
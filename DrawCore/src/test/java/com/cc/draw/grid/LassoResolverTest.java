@@ -0,0 +1,133 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LassoResolverTest {
+
+    private static final float[] TRIANGLE = {5, 5, 195, 20, 60, 180};
+
+    /**
+     * 手动执行提交的任务
+     */
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+
+    private static class Result implements LassoResolver.Callback {
+        int token = -1;
+        GridMask area;
+        int calls;
+
+        @Override
+        public void onResolved(int token, GridMask area) {
+            this.token = token;
+            this.area = new GridMask(area);
+            calls++;
+        }
+    }
+
+    @Test
+    public void submit_matchesSynchronousFill() {
+        QueueExecutor executor = new QueueExecutor();
+        LassoResolver resolver = new LassoResolver(executor);
+        Result result = new Result();
+        float[] points = TRIANGLE.clone();
+        int token = resolver.submit(points, 3, 10, 10, 20, 20,
+                PolygonRasterizer.FILL_POLICY_COVERAGE, 0.3f, result);
+        //提交后修改路径不影响计算
+        points[0] = 100;
+        executor.runAll();
+
+        GridMask expected = new GridMask(20, 20);
+        PolygonRasterizer rasterizer = new PolygonRasterizer();
+        rasterizer.setFillPolicy(PolygonRasterizer.FILL_POLICY_COVERAGE, 0.3f);
+        rasterizer.fill(TRIANGLE, 3, 10, 10, expected, true);
+        assertEquals(1, result.calls);
+        assertEquals(token, result.token);
+        assertTrue(resolver.isCurrent(token));
+        assertEquals(expected, result.area);
+    }
+
+    @Test
+    public void submit_staleResultsAreDropped() {
+        QueueExecutor executor = new QueueExecutor();
+        LassoResolver resolver = new LassoResolver(executor);
+        Result first = new Result();
+        Result second = new Result();
+        resolver.submit(TRIANGLE, 3, 10, 10, 20, 20, PolygonRasterizer.FILL_POLICY_CENTER, 0.5f, first);
+        int token = resolver.submit(TRIANGLE, 3, 10, 10, 20, 20, PolygonRasterizer.FILL_POLICY_CENTER, 0.5f, second);
+        executor.runAll();
+        assertEquals(0, first.calls);
+        assertEquals(1, second.calls);
+        assertEquals(token, second.token);
+
+        Result cancelled = new Result();
+        token = resolver.submit(TRIANGLE, 3, 10, 10, 20, 20, PolygonRasterizer.FILL_POLICY_CENTER, 0.5f, cancelled);
+        resolver.cancel();
+        executor.runAll();
+        assertEquals(0, cancelled.calls);
+        assertFalse(resolver.isCurrent(token));
+    }
+
+    @Test
+    public void recycle_reusedAndCleared() {
+        QueueExecutor executor = new QueueExecutor();
+        LassoResolver resolver = new LassoResolver(executor);
+        final GridMask[] areas = new GridMask[2];
+        LassoResolver.Callback callback = new LassoResolver.Callback() {
+            @Override
+            public void onResolved(int token, GridMask area) {
+                areas[areas[0] == null ? 0 : 1] = area;
+            }
+        };
+        resolver.submit(TRIANGLE, 3, 10, 10, 20, 20, PolygonRasterizer.FILL_POLICY_CENTER, 0.5f, callback);
+        executor.runAll();
+        resolver.recycle(areas[0]);
+        float[] square = {0, 0, 20, 0, 20, 20, 0, 20};
+        resolver.submit(square, 4, 10, 10, 20, 20, PolygonRasterizer.FILL_POLICY_CENTER, 0.5f, callback);
+        executor.runAll();
+        assertSame(areas[0], areas[1]);
+        GridMask expected = new GridMask(20, 20);
+        expected.setRect(0, 0, 2, 2);
+        assertEquals(expected, areas[1]);
+    }
+
+    @Test
+    public void defaultExecutor_resolvesInBackground() throws InterruptedException {
+        LassoResolver resolver = new LassoResolver();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Thread caller = Thread.currentThread();
+        final boolean[] background = new boolean[1];
+        resolver.submit(TRIANGLE, 3, 10, 10, 20, 20, PolygonRasterizer.FILL_POLICY_CENTER, 0.5f,
+                new LassoResolver.Callback() {
+                    @Override
+                    public void onResolved(int token, GridMask area) {
+                        background[0] = Thread.currentThread() != caller;
+                        latch.countDown();
+                    }
+                });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(background[0]);
+        resolver.shutdown();
+    }
+}
@@ -0,0 +1,66 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MaskDeltaTest {
+
+    @Test
+    public void compute_spansAcrossWords() {
+        GridMask previous = new GridMask(4, 150);
+        previous.setSpan(3, 10, 20);
+        GridMask current = new GridMask(previous);
+        current.setSpan(1, 60, 130);
+        current.clearSpan(3, 12, 15);
+        MaskDelta delta = new MaskDelta();
+        assertTrue(delta.compute(previous, current));
+        //跨越两个long边界的区间合并为一个
+        assertEquals(1, delta.getAddedCount());
+        assertEquals(1, delta.getAddedRow(0));
+        assertEquals(60, delta.getAddedFrom(0));
+        assertEquals(130, delta.getAddedTo(0));
+        assertEquals(1, delta.getRemovedCount());
+        assertEquals(3, delta.getRemovedRow(0));
+        assertEquals(12, delta.getRemovedFrom(0));
+        assertEquals(15, delta.getRemovedTo(0));
+        assertEquals(1, delta.getTop());
+        assertEquals(12, delta.getLeft());
+        assertEquals(4, delta.getBottom());
+        assertEquals(130, delta.getRight());
+        assertEquals(current.getVersion(), delta.getVersion());
+        //旧网格已更新，再次计算没有变化
+        assertEquals(current, previous);
+        assertFalse(delta.compute(previous, current));
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    public void apply_reproducesRandomEdits() {
+        Random random = new Random(11);
+        GridMask current = new GridMask(40, 200);
+        GridMask previous = new GridMask(40, 200);
+        GridMask mirror = new GridMask(40, 200);
+        MaskDelta delta = new MaskDelta();
+        for (int n = 0; n < 30; n++) {
+            for (int i = 0; i < 10; i++) {
+                int row = random.nextInt(40);
+                int from = random.nextInt(200);
+                current.setSpan(row, from, from + random.nextInt(90), random.nextBoolean());
+            }
+            int version = delta.getVersion();
+            delta.compute(previous, current);
+            assertTrue(delta.getVersion() > version);
+            delta.apply(mirror);
+            assertEquals(current, mirror);
+            assertEquals(current, previous);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compute_sizeMismatch() {
+        new MaskDelta().compute(new GridMask(2, 3), new GridMask(3, 2));
+    }
+}
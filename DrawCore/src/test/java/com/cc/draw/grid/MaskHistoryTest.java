@@ -0,0 +1,161 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MaskHistoryTest {
+
+    @Test
+    public void undoRedo_restoresMask() {
+        GridMask mask = new GridMask(72, 128);
+        MaskHistory history = new MaskHistory();
+
+        history.begin(mask);
+        mask.setRect(10, 10, 20, 100);
+        assertTrue(history.end(mask));
+        GridMask afterFirst = new GridMask(mask);
+
+        history.begin(mask);
+        mask.clearRect(12, 0, 14, 128);
+        mask.set(50, 127);
+        assertTrue(history.end(mask));
+        GridMask afterSecond = new GridMask(mask);
+
+        assertTrue(history.undo(mask));
+        assertEquals(afterFirst, mask);
+        assertTrue(history.undo(mask));
+        assertTrue(mask.isEmpty());
+        assertFalse(history.undo(mask));
+
+        assertTrue(history.redo(mask));
+        assertTrue(history.redo(mask));
+        assertEquals(afterSecond, mask);
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void end_skipsUnchangedAndClearsRedo() {
+        GridMask mask = new GridMask(4, 4);
+        MaskHistory history = new MaskHistory();
+        history.begin(mask);
+        assertFalse(history.end(mask));
+        assertFalse(history.canUndo());
+
+        history.begin(mask);
+        mask.set(0, 0);
+        history.end(mask);
+        history.undo(mask);
+        assertTrue(history.canRedo());
+
+        history.begin(mask);
+        mask.set(1, 1);
+        history.end(mask);
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void cancel_restoresWithoutRecord() {
+        GridMask mask = new GridMask(4, 70);
+        MaskHistory history = new MaskHistory();
+        history.begin(mask);
+        mask.set(1, 1);
+        history.end(mask);
+
+        history.begin(mask);
+        mask.setSpan(2, 0, 70);
+        assertTrue(history.cancel(mask));
+        assertEquals(1, mask.cardinality());
+        //恢复的行范围
+        assertEquals(2, history.getChangedFromRow());
+        assertEquals(3, history.getChangedToRow());
+        assertFalse(history.end(mask));
+        assertFalse(history.cancel(mask));
+        assertEquals(history.getChangedFromRow(), history.getChangedToRow());
+        //之前的记录不受影响
+        assertTrue(history.undo(mask));
+        assertTrue(mask.isEmpty());
+    }
+
+    @Test
+    public void changedRows_coverEdit() {
+        GridMask mask = new GridMask(10, 130);
+        MaskHistory history = new MaskHistory();
+        history.begin(mask);
+        mask.set(3, 129);
+        mask.setSpan(6, 0, 2);
+        assertTrue(history.end(mask));
+        assertEquals(3, history.getChangedFromRow());
+        assertEquals(7, history.getChangedToRow());
+        assertTrue(history.undo(mask));
+        assertEquals(3, history.getChangedFromRow());
+        assertEquals(7, history.getChangedToRow());
+
+        history.begin(mask);
+        assertFalse(history.end(mask));
+        assertEquals(history.getChangedFromRow(), history.getChangedToRow());
+    }
+
+    @Test
+    public void budget_evictsOldestEntries() {
+        GridMask mask = new GridMask(72, 128);
+        MaskHistory history = new MaskHistory();
+        history.setMaxBytes(1024);
+        for (int row = 0; row < 72; row++) {
+            history.begin(mask);
+            mask.setSpan(row, 0, 128);
+            history.end(mask);
+        }
+        assertTrue(history.getUsedBytes() <= 1024);
+        int undone = 0;
+        while (history.undo(mask)) {
+            undone++;
+        }
+        assertTrue(undone > 0 && undone < 72);
+        //最早的记录被丢弃，对应的行保持填充
+        assertTrue(mask.isSpanSet(0, 0, 128));
+        assertEquals(72 - undone, mask.cardinality() / 128);
+    }
+
+    @Test
+    public void budget_lowerLimitEvictsRedoEntries() {
+        GridMask mask = new GridMask(72, 128);
+        MaskHistory history = new MaskHistory();
+        for (int row = 0; row < 8; row++) {
+            history.begin(mask);
+            mask.setSpan(row, 0, 128);
+            history.end(mask);
+        }
+        while (history.undo(mask)) {
+        }
+        int used = history.getUsedBytes();
+        assertTrue(used > 0);
+        //只剩重做记录时调低上限，仍然要回到上限以内
+        history.setMaxBytes(used / 2);
+        assertTrue(history.getUsedBytes() <= used / 2);
+        assertTrue(history.canRedo());
+        //保留的是最先重做的记录
+        int redone = 0;
+        while (history.redo(mask)) {
+            assertTrue(mask.isSpanSet(redone, 0, 128));
+            redone++;
+        }
+        assertTrue(redone > 0 && redone < 8);
+        assertEquals(redone * 128, mask.cardinality());
+        history.setMaxBytes(0);
+        assertEquals(0, history.getUsedBytes());
+        assertFalse(history.canUndo() || history.canRedo());
+    }
+
+    @Test
+    public void resize_dropsHistory() {
+        GridMask mask = new GridMask(4, 4);
+        MaskHistory history = new MaskHistory();
+        history.begin(mask);
+        mask.set(0, 0);
+        history.end(mask);
+        mask.resize(8, 8);
+        assertFalse(history.undo(mask));
+        assertFalse(history.canUndo());
+    }
+}
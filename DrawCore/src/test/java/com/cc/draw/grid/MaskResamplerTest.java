@@ -0,0 +1,88 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MaskResamplerTest {
+
+    @Test
+    public void upsample_integerRatioIsExact() {
+        GridMask source = new GridMask(12, 20);
+        source.setRect(2, 3, 5, 9);
+        GridMask expected = new GridMask(36, 60);
+        expected.setRect(6, 9, 15, 27);
+        for (int policy = GridMask.RESAMPLE_ANY; policy <= GridMask.RESAMPLE_ALL; policy++) {
+            assertEquals(expected, source.resample(36, 60, policy));
+            assertEquals(source, expected.resample(12, 20, policy));
+        }
+    }
+
+    @Test
+    public void downsample_policies() {
+        //2x2合并为1格，分别填充0~4个源网格
+        GridMask source = new GridMask(2, 10);
+        source.set(0, 2);
+        source.set(0, 4);
+        source.set(1, 4);
+        source.setRect(0, 6, 2, 7);
+        source.set(1, 7);
+        source.setRect(0, 8, 2, 10);
+        assertEquals("[1, 2, 3, 4]", filled(source.resample(1, 5, GridMask.RESAMPLE_ANY)));
+        assertEquals("[2, 3, 4]", filled(source.resample(1, 5, GridMask.RESAMPLE_MAJORITY)));
+        assertEquals("[4]", filled(source.resample(1, 5, GridMask.RESAMPLE_ALL)));
+    }
+
+    @Test
+    public void majority_matchesCellByCellCoverage() {
+        Random random = new Random(3);
+        GridMask source = new GridMask(12, 20);
+        for (int i = 0; i < 100; i++) {
+            source.set(random.nextInt(12), random.nextInt(20));
+        }
+        GridMask target = source.resample(36, 64, GridMask.RESAMPLE_MAJORITY);
+        GridMask any = source.resample(36, 64, GridMask.RESAMPLE_ANY);
+        GridMask all = source.resample(36, 64, GridMask.RESAMPLE_ALL);
+        for (int r = 0; r < 36; r++) {
+            for (int c = 0; c < 64; c++) {
+                double covered = 0;
+                for (int i = 0; i < 12; i++) {
+                    for (int j = 0; j < 20; j++) {
+                        if (source.get(i, j)) {
+                            covered += overlap(r / 36.0, (r + 1) / 36.0, i / 12.0, (i + 1) / 12.0)
+                                    * overlap(c / 64.0, (c + 1) / 64.0, j / 20.0, (j + 1) / 20.0);
+                        }
+                    }
+                }
+                double ratio = covered * 36 * 64;
+                assertEquals(ratio >= 0.5 - 1e-9, target.get(r, c));
+                assertEquals(ratio > 1e-9, any.get(r, c));
+                assertEquals(ratio > 1 - 1e-9, all.get(r, c));
+            }
+        }
+    }
+
+    @Test
+    public void resampleTo_reusesTarget() {
+        GridMask source = new GridMask(4, 4);
+        source.setAll();
+        GridMask target = new GridMask(2, 130);
+        target.set(0, 0);
+        source.resampleTo(target, GridMask.RESAMPLE_ALL);
+        assertEquals(2 * 130, target.cardinality());
+    }
+
+    private static double overlap(double a0, double a1, double b0, double b1) {
+        return Math.max(0, Math.min(a1, b1) - Math.max(a0, b0));
+    }
+
+    private static String filled(GridMask mask) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int c = mask.nextSetBit(0, 0); c >= 0; c = mask.nextSetBit(0, c + 1)) {
+            builder.append(builder.length() > 1 ? ", " : "").append(c);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,231 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PolygonRasterizerTest {
+
+    @Test
+    public void fill_rectangleByCellCenters() {
+        GridMask mask = new GridMask(12, 20);
+        //覆盖第2~5列中心(25, 35, 45, 55)与第1~2行中心(15, 25)
+        float[] points = {21, 11, 59, 11, 59, 29, 21, 29};
+        new PolygonRasterizer().fill(points, 4, 10, 10, mask, true);
+        GridMask expected = new GridMask(12, 20);
+        expected.setRect(1, 2, 3, 6);
+        assertEquals(expected, mask);
+    }
+
+    @Test
+    public void fill_eraseClearsInside() {
+        GridMask mask = new GridMask(10, 10);
+        mask.setAll();
+        float[] points = {0, 0, 100, 0, 100, 100, 0, 100};
+        new PolygonRasterizer().fill(points, 4, 10, 10, mask, false);
+        assertTrue(mask.isEmpty());
+    }
+
+    @Test
+    public void fill_matchesNonZeroWindingOnRandomLassos() {
+        Random random = new Random(7);
+        PolygonRasterizer rasterizer = new PolygonRasterizer();
+        for (int n = 0; n < 50; n++) {
+            int pointCount = 3 + random.nextInt(60);
+            float[] points = new float[pointCount * 2];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = random.nextFloat() * 640;
+            }
+            GridMask mask = new GridMask(36, 64);
+            rasterizer.fill(points, pointCount, 10, 640f / 36, mask, true);
+            for (int r = 0; r < 36; r++) {
+                for (int c = 0; c < 64; c++) {
+                    float x = (c + 0.5f) * 10;
+                    float y = (r + 0.5f) * (640f / 36);
+                    assertEquals("cell " + r + "," + c, winding(points, pointCount, x, y) != 0, mask.get(r, c));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fillPolygons_unionKeepsOppositeOrientations() {
+        GridMask mask = new GridMask(10, 10);
+        //顺时针与逆时针的两个重叠矩形，按单一环绕数会相互抵消
+        List<XyPolygon> polygons = Arrays.asList(
+                new XyPolygon(0, 0, 60, 0, 60, 60, 0, 60),
+                new XyPolygon(40, 40, 40, 100, 100, 100, 100, 40),
+                new XyPolygon(0, 0, 100, 100));
+        new PolygonRasterizer().fill(polygons, 10, 10, mask, true);
+        GridMask expected = new GridMask(10, 10);
+        expected.setRect(0, 0, 6, 6);
+        expected.setRect(4, 4, 10, 10);
+        assertEquals(expected, mask);
+    }
+
+    @Test
+    public void fillPolygons_matchesSingleFills() {
+        Random random = new Random(19);
+        PolygonRasterizer rasterizer = new PolygonRasterizer();
+        for (int n = 0; n < 30; n++) {
+            List<XyPolygon> polygons = new ArrayList<>();
+            GridMask expected = new GridMask(36, 64);
+            GridMask erased = new GridMask(36, 64);
+            erased.setAll();
+            for (int p = 1 + random.nextInt(5); p > 0; p--) {
+                int pointCount = 3 + random.nextInt(20);
+                float[] points = new float[pointCount * 2];
+                for (int i = 0; i < points.length; i++) {
+                    //包含超出网格的坐标
+                    points[i] = random.nextFloat() * 800 - 80;
+                }
+                polygons.add(new XyPolygon(points));
+                rasterizer.fill(points, pointCount, 10, 640f / 36, expected, true);
+                rasterizer.fill(points, pointCount, 10, 640f / 36, erased, false);
+            }
+            GridMask mask = new GridMask(36, 64);
+            rasterizer.fill(polygons, 10, 640f / 36, mask, true);
+            assertEquals(expected, mask);
+
+            mask.setAll();
+            rasterizer.fill(polygons, 10, 640f / 36, mask, false);
+            assertEquals(erased, mask);
+        }
+    }
+
+    @Test
+    public void fillPolicy_partialCells() {
+        //第1行：第1列被完全覆盖，第0、2列各覆盖40%且中心点不在内部
+        float[] points = {6, 10, 24, 10, 24, 20, 6, 20};
+        PolygonRasterizer rasterizer = new PolygonRasterizer();
+        GridMask mask = new GridMask(3, 3);
+        rasterizer.fill(points, 4, 10, 10, mask, true);
+        assertEquals(1, mask.cardinality());
+        assertTrue(mask.get(1, 1));
+
+        rasterizer.setFillPolicy(PolygonRasterizer.FILL_POLICY_ANY, 0);
+        mask.clearAll();
+        rasterizer.fill(points, 4, 10, 10, mask, true);
+        assertEquals(3, mask.cardinality());
+        assertFalse(mask.get(0, 1));
+
+        rasterizer.setFillPolicy(PolygonRasterizer.FILL_POLICY_COVERAGE, 0.4f);
+        mask.clearAll();
+        rasterizer.fill(points, 4, 10, 10, mask, true);
+        assertEquals(3, mask.cardinality());
+
+        rasterizer.setFillPolicy(PolygonRasterizer.FILL_POLICY_COVERAGE, 0.45f);
+        mask.clearAll();
+        rasterizer.fill(points, 4, 10, 10, mask, true);
+        assertEquals(1, mask.cardinality());
+    }
+
+    @Test
+    public void fillPolicy_matchesClippedArea() {
+        Random random = new Random(23);
+        PolygonRasterizer rasterizer = new PolygonRasterizer();
+        float cellWidth = 10, cellHeight = 640f / 36;
+        for (int n = 0; n < 40; n++) {
+            //围绕中心按角度排列的顶点构成简单多边形，部分顶点超出网格
+            int pointCount = 3 + random.nextInt(40);
+            float[] angles = new float[pointCount];
+            for (int i = 0; i < pointCount; i++) {
+                angles[i] = (float) (random.nextDouble() * Math.PI * 2);
+            }
+            Arrays.sort(angles);
+            float centerX = random.nextFloat() * 640, centerY = random.nextFloat() * 640;
+            float[] points = new float[pointCount * 2];
+            for (int i = 0; i < pointCount; i++) {
+                float radius = 20 + random.nextFloat() * 400;
+                points[i * 2] = centerX + radius * (float) Math.cos(angles[i]);
+                points[i * 2 + 1] = centerY + radius * (float) Math.sin(angles[i]);
+            }
+            float minCoverage = 0.1f + random.nextFloat() * 0.8f;
+            GridMask any = new GridMask(36, 64);
+            rasterizer.setFillPolicy(PolygonRasterizer.FILL_POLICY_ANY, 0);
+            rasterizer.fill(points, pointCount, cellWidth, cellHeight, any, true);
+            GridMask covered = new GridMask(36, 64);
+            rasterizer.setFillPolicy(PolygonRasterizer.FILL_POLICY_COVERAGE, minCoverage);
+            rasterizer.fill(points, pointCount, cellWidth, cellHeight, covered, true);
+            for (int r = 0; r < 36; r++) {
+                for (int c = 0; c < 64; c++) {
+                    double area = clippedArea(points, c * cellWidth, r * cellHeight, (c + 1) * cellWidth, (r + 1) * cellHeight)
+                            / (cellWidth * cellHeight);
+                    //跳过恰好落在阈值附近的网格
+                    if (Math.abs(area - minCoverage) > 1e-3) {
+                        assertEquals("cell " + r + "," + c, area >= minCoverage, covered.get(r, c));
+                    }
+                    if (area > 1e-3 || area == 0) {
+                        assertEquals("cell " + r + "," + c, area > 0, any.get(r, c));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 多边形与矩形相交部分的面积（Sutherland-Hodgman裁剪）
+     */
+    private static double clippedArea(float[] points, double left, double top, double right, double bottom) {
+        double[] polygon = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            polygon[i] = points[i];
+        }
+        polygon = clip(polygon, 1, 0, -left);
+        polygon = clip(polygon, -1, 0, right);
+        polygon = clip(polygon, 0, 1, -top);
+        polygon = clip(polygon, 0, -1, bottom);
+        double area = 0;
+        int n = polygon.length / 2;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            area += polygon[i * 2] * polygon[j * 2 + 1] - polygon[j * 2] * polygon[i * 2 + 1];
+        }
+        return Math.abs(area) / 2;
+    }
+
+    /**
+     * 保留 a * x + b * y + c >= 0 的部分
+     */
+    private static double[] clip(double[] polygon, double a, double b, double c) {
+        int n = polygon.length / 2;
+        double[] result = new double[n * 4];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            double x0 = polygon[i * 2], y0 = polygon[i * 2 + 1];
+            double x1 = polygon[j * 2], y1 = polygon[j * 2 + 1];
+            double d0 = a * x0 + b * y0 + c, d1 = a * x1 + b * y1 + c;
+            if (d0 >= 0) {
+                result[count++] = x0;
+                result[count++] = y0;
+            }
+            if ((d0 >= 0) != (d1 >= 0)) {
+                double t = d0 / (d0 - d1);
+                result[count++] = x0 + t * (x1 - x0);
+                result[count++] = y0 + t * (y1 - y0);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int winding(float[] p, int n, float x, float y) {
+        int winding = 0;
+        for (int i = 0; i < n; i++) {
+            float x0 = p[((i + n - 1) % n) * 2], y0 = p[((i + n - 1) % n) * 2 + 1];
+            float x1 = p[i * 2], y1 = p[i * 2 + 1];
+            if ((y0 <= y && y < y1) || (y1 <= y && y < y0)) {
+                float cx = x0 + (y - y0) * (x1 - x0) / (y1 - y0);
+                if (cx <= x) {
+                    winding += y1 > y0 ? 1 : -1;
+                }
+            }
+        }
+        return winding;
+    }
+}
@@ -0,0 +1,53 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StrokeRasterizerTest {
+
+    @Test
+    public void drawLine_horizontalMarksWholeRun() {
+        GridMask mask = new GridMask(10, 100);
+        StrokeRasterizer.drawLine(5, 35, 995, 35, 10, 10, mask, true);
+        assertEquals(100, mask.cardinality(3));
+        assertEquals(100, mask.cardinality());
+    }
+
+    @Test
+    public void drawLine_fastDiagonalLeavesNoGaps() {
+        GridMask mask = new GridMask(36, 64);
+        StrokeRasterizer.drawLine(1, 1, 639, 359, 10, 10, mask, true);
+        //每一行都被经过且列区间连续，相邻行的区间相互衔接
+        int previousRight = -1;
+        for (int r = 0; r < 36; r++) {
+            int left = mask.nextSetBit(r, 0);
+            int right = mask.nextClearBit(r, left);
+            assertTrue(left >= 0);
+            assertEquals(right - left, mask.cardinality(r));
+            if (previousRight >= 0) {
+                assertTrue(left <= previousRight);
+            }
+            previousRight = right;
+        }
+    }
+
+    @Test
+    public void drawLine_throughCornerTouchesBothNeighbours() {
+        GridMask mask = new GridMask(4, 4);
+        StrokeRasterizer.drawLine(5, 15, 15, 5, 10, 10, mask, true);
+        assertTrue(mask.get(1, 0));
+        assertTrue(mask.get(0, 1));
+        assertTrue(mask.get(0, 0));
+        assertTrue(mask.get(1, 1));
+    }
+
+    @Test
+    public void drawLine_eraseAndClampToGrid() {
+        GridMask mask = new GridMask(4, 4);
+        mask.setAll();
+        StrokeRasterizer.drawLine(-50, 15, 500, 15, 10, 10, mask, false);
+        assertEquals(0, mask.cardinality(1));
+        assertEquals(12, mask.cardinality());
+    }
+}
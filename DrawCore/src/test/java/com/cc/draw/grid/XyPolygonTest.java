@@ -0,0 +1,50 @@
+package com.cc.draw.grid;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class XyPolygonTest {
+
+    @Test
+    public void contains_concavePolygon() {
+        //凹形：中间上方有缺口
+        XyPolygon polygon = new XyPolygon(0, 0, 10, 0, 10, 10, 6, 10, 6, 4, 4, 4, 4, 10, 0, 10);
+        assertTrue(polygon.contains(2, 8));
+        assertTrue(polygon.contains(5, 2));
+        assertFalse(polygon.contains(5, 8));
+        assertFalse(polygon.contains(11, 5));
+        assertFalse(new XyPolygon().contains(0, 0));
+    }
+
+    @Test
+    public void boundary_trackedIncrementally() {
+        Random random = new Random(5);
+        float[] coords = new float[16];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = random.nextFloat() * 100;
+        }
+        XyPolygon polygon = new XyPolygon(coords);
+        for (int n = 0; n < 500; n++) {
+            polygon.setPoint(random.nextInt(8), random.nextFloat() * 100, random.nextFloat() * 100);
+            XyPolygon expected = new XyPolygon(polygon);
+            assertEquals(expected.getX(expected.getLeftMostIndex()), polygon.getX(polygon.getLeftMostIndex()), 0);
+            assertEquals(expected.getX(expected.getRightMostIndex()), polygon.getX(polygon.getRightMostIndex()), 0);
+            assertEquals(expected.getY(expected.getTopMostIndex()), polygon.getY(polygon.getTopMostIndex()), 0);
+            assertEquals(expected.getY(expected.getBottomMostIndex()), polygon.getY(polygon.getBottomMostIndex()), 0);
+        }
+    }
+
+    @Test
+    public void offset_keepsBoundaryIndices() {
+        XyPolygon polygon = new XyPolygon(0, 0, 10, 2, 4, 8);
+        polygon.offset(5, -1);
+        assertEquals(0, polygon.getLeftMostIndex());
+        assertEquals(1, polygon.getRightMostIndex());
+        assertEquals(2, polygon.getBottomMostIndex());
+        assertEquals(15, polygon.getX(1), 0);
+        assertTrue(polygon.contains(10, 3));
+    }
+}
@@ -90,7 +90,10 @@
    int column;
    int mode;
    boolean showPath;
-   int[][] integerArray;
+}
+
+-keep public class com.cc.draw.grid.** {
+   public *;
 }
 
 -keepclassmembers class com.cc.draw.sdk.CCSdk {
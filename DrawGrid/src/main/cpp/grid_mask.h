@@ -0,0 +1,73 @@
+// GridImageView.getMaskBuffer() 返回的direct ByteBuffer的内存布局，
+// 与 com.cc.draw.grid.GridMaskBuffer 保持一致，供native检测代码直接读取。
+//
+// 用法：
+//   const void *base = env->GetDirectBufferAddress(buffer);  // 只需获取一次
+//   uint64_t generation = 0;
+//   ...
+//   if (grid_mask_generation(base) != generation) {
+//       generation = grid_mask_read(base, words, capacity, &header);
+//   }
+
+#ifndef DRAWGRID_GRID_MASK_H
+#define DRAWGRID_GRID_MASK_H
+
+#include <stddef.h>
+#include <stdint.h>
+#include <string.h>
+
+#define GRID_MASK_MAGIC 0x4B534D47
+#define GRID_MASK_LAYOUT_VERSION 1
+// buffer已被新的buffer替代（网格变大），需要重新调用getMaskBuffer()
+#define GRID_MASK_FLAG_DETACHED 1
+
+struct GridMaskHeader {
+    uint32_t magic;
+    uint32_t version;
+    int32_t rows;
+    int32_t columns;
+    // 每行占用的uint64_t个数
+    int32_t wordsPerRow;
+    uint32_t flags;
+    // 写入过程中为奇数
+    uint64_t generation;
+};
+
+// 第row行第column列是否填充，words为紧跟在头部之后的位数据
+static inline int grid_mask_get(const uint64_t *words, int32_t wordsPerRow, int32_t row, int32_t column) {
+    return (int) ((words[row * wordsPerRow + (column >> 6)] >> (column & 63)) & 1u);
+}
+
+static inline const uint64_t *grid_mask_words(const void *base) {
+    return (const uint64_t *) ((const uint8_t *) base + sizeof(struct GridMaskHeader));
+}
+
+static inline uint64_t grid_mask_generation(const void *base) {
+    return __atomic_load_n(&((const struct GridMaskHeader *) base)->generation, __ATOMIC_ACQUIRE);
+}
+
+// 按顺序锁读取头部和位数据，out至少需要capacity个uint64_t。
+// 返回读到的generation（尚未发布过时也为0）；布局不匹配、已被替代或out容量不足时返回0，header仍会被填充
+static inline uint64_t grid_mask_read(const void *base, uint64_t *out, size_t capacity, struct GridMaskHeader *header) {
+    const struct GridMaskHeader *shared = (const struct GridMaskHeader *) base;
+    for (;;) {
+        uint64_t before = grid_mask_generation(base);
+        if (before & 1u) {
+            continue;
+        }
+        memcpy(header, shared, sizeof(struct GridMaskHeader));
+        size_t count = (size_t) header->rows * (size_t) header->wordsPerRow;
+        int usable = header->magic == GRID_MASK_MAGIC && header->version == GRID_MASK_LAYOUT_VERSION
+                     && !(header->flags & GRID_MASK_FLAG_DETACHED) && count <= capacity;
+        if (usable) {
+            memcpy(out, grid_mask_words(base), count * sizeof(uint64_t));
+        }
+        __atomic_thread_fence(__ATOMIC_ACQUIRE);
+        if (__atomic_load_n(&shared->generation, __ATOMIC_RELAXED) == before) {
+            header->generation = before;
+            return usable ? before : 0;
+        }
+    }
+}
+
+#endif //DRAWGRID_GRID_MASK_H
@@ -16,6 +16,10 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
 
+import com.cc.draw.grid.GridMask;
+import com.cc.draw.grid.PolygonRasterizer;
+import com.cc.draw.grid.XyPolygon;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -109,13 +113,9 @@ public class DragXyView extends View {
     private float mEventY;
 
     /**
-     * 最近一次点的X坐标
-     */
-    private float mLastX;
-    /**
-     * 最近一次点的Y坐标
+     * 记录最近一次应用的位置，移动距离超过100时过滤掉，因为这可能是多点触控导致的触摸点坐标突变
      */
-    private float mLastY;
+    private MoveTracker mMoveTracker = new MoveTracker(100);
 
     /**
      * 按下时点的X坐标
@@ -233,6 +233,17 @@ public class DragXyView extends View {
      */
     private boolean isFakeBoldText = false;
 
+    /**
+     * 按帧合并拖动过程中的重绘
+     */
+    private FrameInvalidator mFrameInvalidator = new FrameInvalidator(this);
+
+    /**
+     * 多边形转换为网格区域时复用
+     */
+    private PolygonRasterizer mPolygonRasterizer = new PolygonRasterizer();
+    private List<XyPolygon> mAreaPolygons = new ArrayList<>();
+
 
     public DragXyView(Context context) {
         this(context, null);
@@ -470,6 +481,12 @@ public class DragXyView extends View {
         return normalColor;
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mFrameInvalidator.cancel();
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         mEventX = event.getX();
@@ -481,6 +498,14 @@ public class DragXyView extends View {
                 isIntercept = handleDownEvent(mEventX, mEventY);
                 break;
             case MotionEvent.ACTION_MOVE:
+                //依次处理两次事件之间缓存的历史采样点，保证拖动的精度
+                for (int i = 0, historySize = event.getHistorySize(); i < historySize && isIntercept; i++) {
+                    mEventX = event.getHistoricalX(i);
+                    mEventY = event.getHistoricalY(i);
+                    isIntercept = handleMoveEvent(mEventX, mEventY);
+                }
+                mEventX = event.getX();
+                mEventY = event.getY();
                 if (isIntercept) {
                     isIntercept = handleMoveEvent(mEventX, mEventY);
                 }
@@ -490,8 +515,6 @@ public class DragXyView extends View {
                 handleUpEvent(mEventX, mEventY);
                 break;
         }
-        mLastX = mEventX;
-        mLastY = mEventY;
         return isIntercept || super.onTouchEvent(event);
     }
 
@@ -558,7 +581,7 @@ public class DragXyView extends View {
      *
      * @param eventX
      * @param eventY
-     * @return
+     * @return 是否继续处理本次拖动，位移不足1像素或坐标突变时只是跳过该采样点，仍返回{@code true}
      */
     private boolean handleMoveEvent(float eventX, float eventY) {
         if (isClickEvent || isLongClickRunnable) {
@@ -574,14 +597,13 @@ public class DragXyView extends View {
             }
         }
 
-        if (Math.sqrt(Math.abs(Math.pow(eventX - mLastX, 2) + Math.pow(eventY - mLastY, 2))) > 100) {
-            //如果两点之间的距离超过100则过滤掉，因为这可能是多点触控导致的触摸点坐标突变
-            return false;
-        }
         if (mXyViewPosition >= 0) {
             if (mEventPointIndex >= 0) {//拖动点，改变多边形当前拖动的点坐标信息
                 if (isClickToggleSelected && mXyViewPosition == mXyViewSelectPosition) {
                     if (isChangeAngleEnabled) {
+                        if (mMoveTracker.move(eventX, eventY, 0) != MoveTracker.MOVE_APPLY) {
+                            return true;
+                        }
                         //根据触摸的点坐标更新X轴坐标信息
                         float newX = eventX;
                         float newY = eventY;
@@ -600,7 +622,7 @@ public class DragXyView extends View {
                         }
 
                         mXyPointList.get(mXyViewPosition).updatePoint(newX, newY, mEventPointIndex);
-                        invalidate();
+                        mFrameInvalidator.invalidate();
                         if (mOnChangeListener != null) {
                             mOnChangeListener.onChanged(mXyViewPosition, true);
                         }
@@ -608,9 +630,13 @@ public class DragXyView extends View {
                     }
                 }
 
-            } else if (isDragEvent && (Math.abs(mLastX - eventX) > 1 || Math.abs(mLastY - eventY) > 1)) {//拖动多边形
+            } else if (isDragEvent) {//拖动多边形
                 if (isClickToggleSelected && mXyViewPosition == mXyViewSelectPosition) {
-                    updateDragPoints(mXyPointList.get(mXyViewPosition));
+                    //不足1像素的移动累积到之后的采样点中
+                    if (mMoveTracker.move(eventX, eventY, 1) != MoveTracker.MOVE_APPLY) {
+                        return true;
+                    }
+                    updateDragPoints(mXyPointList.get(mXyViewPosition), mMoveTracker.getDx(), mMoveTracker.getDy());
                     if (mOnChangeListener != null) {
                         mOnChangeListener.onChanged(mXyViewPosition, true);
                     }
@@ -629,8 +655,9 @@ public class DragXyView extends View {
      * @param eventY
      */
     private boolean handleDownEvent(float eventX, float eventY) {
-        mDownX = mLastX = eventX;
-        mDownY = mLastY = eventY;
+        mDownX = eventX;
+        mDownY = eventY;
+        mMoveTracker.reset(eventX, eventY);
         int size = mXyPointList.size();
 
 
@@ -648,7 +675,7 @@ public class DragXyView extends View {
             }
 
             if (mEventPointIndex < 0) {//如果触摸点小于0，则去检测是否符合拖动事件
-                isDragEvent = canDragEvent(mXyPointList.get(mXyViewSelectPosition).getPoints(), eventX, eventY);
+                isDragEvent = canDragEvent(mXyPointList.get(mXyViewSelectPosition), eventX, eventY);
                 if (isDragEvent) {
                     mXyViewPosition = mXyViewSelectPosition;
                     if (mOnChangeListener != null) {
@@ -678,7 +705,7 @@ public class DragXyView extends View {
             }
 
             if (mEventPointIndex < 0) {//如果触摸点小于0，则去检测是否符合拖动事件
-                isDragEvent = canDragEvent(mXyPointList.get(i).getPoints(), eventX, eventY);
+                isDragEvent = canDragEvent(mXyPointList.get(i), eventX, eventY);
                 if (isDragEvent) {
                     mXyViewPosition = i;
                     if (mOnChangeListener != null) {
@@ -732,76 +759,50 @@ public class DragXyView extends View {
     /**
      * 根据判断点坐标是否在区域内，来决定是否允许拖动
      *
-     * @param point
+     * @param xyPoint
      * @param eventX
      * @param eventY
      * @return
      */
-    private boolean canDragEvent(PointF[] point, float eventX, float eventY) {
-        int cross = 0;
-        if (point != null && point.length > 0) {
-            int size = point.length;
-            for (int i = 0; i < size; i++) {
-                PointF p1 = point[i];
-                PointF p2 = point[(i + 1) % size];
-                //求解 y=p.y 与 p1 p2 的交点
-                if (p1.y == p2.y) // p1 p2 与 y=p0.y平行
-                    continue;
-                if (eventY < Math.min(p1.y, p2.y)) //交点在p1 p2延长线上
-                    continue;
-                if (eventY >= Math.max(p1.y, p2.y)) //交点在p1 p2延长线上
-                    continue;
-                //求交点的x坐标
-                float x = (eventY - p1.y) * (p2.x - p1.x) / (p2.y - p1.y) + p1.x;
-                if (x > eventX)
-                    cross++; //只统计单边交点
-            }
-        }
-
-        return (cross % 2 == 1);
+    private boolean canDragEvent(XyPoint xyPoint, float eventX, float eventY) {
+        return xyPoint.contains(eventX, eventY);
     }
 
     /**
      * 更新拖拽点信息
+     *
+     * @param moveX 相对上一次应用位置的X轴位移
+     * @param moveY 相对上一次应用位置的Y轴位移
      */
-    private synchronized void updateDragPoints(XyPoint xyPoint) {
-        float moveX = mEventX - mLastX;
-        float moveY = mEventY - mLastY;
+    private synchronized void updateDragPoints(XyPoint xyPoint, float moveX, float moveY) {
         PointF[] points = xyPoint.getPoints();
         if (points != null && points.length > 0) {
-            int size = points.length;
             boolean isMoveX = true;
             boolean isMoveY = true;
             if (!isAllowDragOutView) {//如果允许拖出视图以外，则进行判断是否有点超出了四个边界
-                for (int i = 0; i < size; i++) {
-                    //通过遍历判定X轴坐标点是否碰碰撞的左右的边界
-                    if (moveX > 0 && xyPoint.getRightMostPoint().x + moveX > getWidth()) { //向右边移动
-                        isMoveX = false;
-                    } else if (moveX < 0 && xyPoint.getLeftMostPoint().x + moveX < 0) {//向左移动
-                        isMoveX = false;
-                    }
-                    //通过遍历判定Y轴坐标点是否碰碰撞到上下的边界
-                    if (moveY > 0 && xyPoint.getBottomMostPoint().y + moveY > getHeight()) {//向下移动
-                        isMoveY = false;
-                    } else if (moveY < 0 && xyPoint.getTopMostPoint().y + moveY < 0) {//向上移动
-                        isMoveY = false;
-                    }
-                    //如果经过判定X,Y轴都无法移动，则直接返回
-                    if (!(isMoveX || isMoveY)) {
-                        return;
-                    }
+                //边界点根据点坐标计算，只取一次
+                XyPolygon polygon = xyPoint.getPolygon();
+                //判定X轴坐标点是否碰碰撞的左右的边界
+                if (moveX > 0 && polygon.getX(polygon.getRightMostIndex()) + moveX > getWidth()) { //向右边移动
+                    isMoveX = false;
+                } else if (moveX < 0 && polygon.getX(polygon.getLeftMostIndex()) + moveX < 0) {//向左移动
+                    isMoveX = false;
+                }
+                //判定Y轴坐标点是否碰碰撞到上下的边界
+                if (moveY > 0 && polygon.getY(polygon.getBottomMostIndex()) + moveY > getHeight()) {//向下移动
+                    isMoveY = false;
+                } else if (moveY < 0 && polygon.getY(polygon.getTopMostIndex()) + moveY < 0) {//向上移动
+                    isMoveY = false;
+                }
+                //如果经过判定X,Y轴都无法移动，则直接返回
+                if (!(isMoveX || isMoveY)) {
+                    return;
                 }
             }
             //只要有一边没有碰撞到边界，就可以拖动
             if (isMoveX || isMoveY) {
-                for (int i = 0; i < size; i++) {
-                    if (isMoveX)
-                        points[i].x += moveX;
-                    if (isMoveY)
-                        points[i].y += moveY;
-                    xyPoint.updatePoint(points[i], i);
-                }
-                invalidate();
+                xyPoint.offset(isMoveX ? moveX : 0, isMoveY ? moveY : 0);
+                mFrameInvalidator.invalidate();
             }
         }
     }
@@ -938,6 +939,62 @@ public class DragXyView extends View {
         return mXyPointList;
     }
 
+    /**
+     * 把所有多边形转换为row行column列的网格区域，网格铺满整个View，
+     * 与{@link GridImageView}的套索相同，网格中心在任意多边形内部即为填充
+     *
+     * @param row
+     * @param column
+     * @return
+     */
+    public GridMask getAreaMask(int row, int column) {
+        GridMask mask = new GridMask(row, column);
+        getAreaMask(mask);
+        return mask;
+    }
+
+    /**
+     * 把所有多边形转换为网格区域写入target，行列数由target决定，原有内容会被清除。
+     * 拖动顶点时可以在{@link OnChangeListener}中复用同一个target实时更新
+     *
+     * @param target
+     */
+    public void getAreaMask(GridMask target) {
+        target.clearAll();
+        if (target.getRows() == 0 || target.getColumns() == 0) {
+            return;
+        }
+        mAreaPolygons.clear();
+        for (XyPoint xyPoint : mXyPointList) {
+            mAreaPolygons.add(xyPoint.getPolygon());
+        }
+        mPolygonRasterizer.fill(mAreaPolygons, 1.0f * getWidth() / target.getColumns(),
+                1.0f * getHeight() / target.getRows(), target, true);
+        mAreaPolygons.clear();
+    }
+
+    /**
+     * 设置多边形转换为网格区域时判断网格是否填充的规则，默认按网格中心判断
+     *
+     * @param policy      {@link PolygonRasterizer#FILL_POLICY_CENTER}、{@link PolygonRasterizer#FILL_POLICY_ANY}
+     *                    或 {@link PolygonRasterizer#FILL_POLICY_COVERAGE}
+     * @param minCoverage 按覆盖比例判断时的最小比例，取值(0, 1]
+     */
+    public void setAreaFillPolicy(int policy, float minCoverage) {
+        mPolygonRasterizer.setFillPolicy(policy, minCoverage);
+    }
+
+    /**
+     * 获取所有多边形对应的填充区域，格式与{@link GridImageView#getArea()}相同
+     *
+     * @param row
+     * @param column
+     * @return
+     */
+    public String getArea(int row, int column) {
+        return GridImageView.formatArea(getAreaMask(row, column));
+    }
+
     /**
      * 设置多边形
      *
@@ -1420,38 +1477,11 @@ public class DragXyView extends View {
         private int size;
 
         /**
-         * 最左边的点坐标信息
-         */
-        private PointF mLeftMostPoint;
-        /**
-         * 最上边的点坐标信息
-         */
-        private PointF mTopMostPoint;
-        /**
-         * 最右边的点坐标信息
-         */
-        private PointF mRightMostPoint;
-        /**
-         * 最下边的点坐标信息
+         * 点击判断、边界判断和转换网格区域都委托给它。点坐标只保存在{@link #mPoints}中，
+         * 通过{@link #getPoints()}直接修改点坐标后也能保持一致，因此每次使用前都根据点坐标重新生成
          */
-        private PointF mBottomMostPoint;
-
-        /**
-         * 最左边的点坐标信息索引
-         */
-        private int mLeftMostPointIndex = NONE;
-        /**
-         * 最上边的点坐标信息索引
-         */
-        private int mTopMostPointIndex = NONE;
-        /**
-         * 最右边的点坐标信息索引
-         */
-        private int mRightMostPointIndex = NONE;
-        /**
-         * 最下边的点坐标信息索引
-         */
-        private int mBottomMostPointIndex = NONE;
+        private final XyPolygon mPolygon = new XyPolygon();
+        private float[] mCoords = new float[0];
 
         /**
          * 多选时，用于标记是否选中，仅供内部使用
@@ -1498,107 +1528,77 @@ public class DragXyView extends View {
          * 获取最左边的点坐标信息
          */
         public PointF getLeftMostPoint() {
-            return mLeftMostPoint;
+            return pointAt(obtainPolygon().getLeftMostIndex());
         }
 
         /**
          * 获取最上边的点坐标信息
          */
         public PointF getTopMostPoint() {
-            return mTopMostPoint;
+            return pointAt(obtainPolygon().getTopMostIndex());
         }
 
         /**
          * 获取最右边的点坐标信息
          */
         public PointF getRightMostPoint() {
-            return mRightMostPoint;
+            return pointAt(obtainPolygon().getRightMostIndex());
         }
 
         /**
          * 获取最下边的点坐标信息
          */
         public PointF getBottomMostPoint() {
-            return mBottomMostPoint;
+            return pointAt(obtainPolygon().getBottomMostIndex());
         }
 
         /**
          * 获取最左边的点坐标信息索引
          */
         public int getLeftMostPointIndex() {
-            return mLeftMostPointIndex;
+            return obtainPolygon().getLeftMostIndex();
         }
 
         /**
          * 获取最上边的点坐标信息索引
          */
         public int getTopMostPointIndex() {
-            return mTopMostPointIndex;
+            return obtainPolygon().getTopMostIndex();
         }
 
         /**
          * 获取最右边的点坐标信息索引
          */
         public int getRightMostPointIndex() {
-            return mRightMostPointIndex;
+            return obtainPolygon().getRightMostIndex();
         }
 
         /**
          * 获取最下边的点坐标信息索引
          */
         public int getBottomMostPointIndex() {
-            return mBottomMostPointIndex;
+            return obtainPolygon().getBottomMostIndex();
         }
 
-        /**
-         * 更新边界点（分别是最左，最右，最上，最下的点坐标信息）
-         */
-        private void updateBoundaryPoints() {
-            updateBoundaryPoints(mPoints);
-        }
-
-        /**
-         * 更新边界点（分别是最左，最右，最上，最下的点坐标信息）
-         *
-         * @param points
-         */
-        private synchronized void updateBoundaryPoints(PointF[] points) {
-            if (points != null && size > 0) {
-                mLeftMostPoint = mRightMostPoint = mTopMostPoint = mBottomMostPoint = points[0];
-                mLeftMostPointIndex = mRightMostPointIndex = mTopMostPointIndex = mBottomMostPointIndex = 0;
-                for (int i = 1; i < size; i++) {
-                    updateBoundaryPoints(points[i], i);
-                }
-            } else {
-                mLeftMostPointIndex = mRightMostPointIndex = mTopMostPointIndex = mBottomMostPointIndex = NONE;
-            }
+        private PointF pointAt(int index) {
+            return index == NONE ? null : mPoints[index];
         }
 
         /**
-         * 更新边界点（分别是最左，最右，最上，最下的点坐标信息）
-         *
-         * @param point
+         * 根据当前的点坐标重新生成{@link #mPolygon}，同时更新边界点
          */
-        private synchronized void updateBoundaryPoints(PointF point, int position) {
-            if (mLeftMostPoint.x > point.x) {
-                mLeftMostPoint = point;
-                mLeftMostPointIndex = position;
+        private XyPolygon obtainPolygon() {
+            if (mCoords.length < size * 2) {
+                mCoords = new float[size * 2];
             }
-            if (mRightMostPoint.x < point.x) {
-                mRightMostPoint = point;
-                mRightMostPointIndex = position;
-            }
-            if (mTopMostPoint.y > point.y) {
-                mTopMostPoint = point;
-                mTopMostPointIndex = position;
-            }
-            if (mBottomMostPoint.y < point.y) {
-                mBottomMostPoint = point;
-                mBottomMostPointIndex = position;
+            for (int i = 0; i < size; i++) {
+                mCoords[i * 2] = mPoints[i].x;
+                mCoords[i * 2 + 1] = mPoints[i].y;
             }
+            mPolygon.setPoints(mCoords, size);
+            return mPolygon;
         }
 
-
         /**
          * 设置多边形坐标点信息，设置时，请确保至少三个点以上才能组成一个多边形
          *
@@ -1607,7 +1607,6 @@ public class DragXyView extends View {
         public void setPoints(PointF... points) {
             mPoints = points;
             size = mPoints.length;
-            updateBoundaryPoints();
         }
 
         /**
@@ -1620,7 +1619,7 @@ public class DragXyView extends View {
         }
 
         /**
-         * 获取多边形坐标点信息
+         * 获取多边形坐标点信息，可以直接修改返回的点坐标
          *
          * @return
          */
@@ -1628,6 +1627,26 @@ public class DragXyView extends View {
             return mPoints;
         }
 
+        /**
+         * 获取多边形模型，根据当前的点坐标生成，对象会被复用，修改它不会影响点坐标
+         *
+         * @return
+         */
+        public XyPolygon getPolygon() {
+            return obtainPolygon();
+        }
+
+        /**
+         * 点是否在多边形内部
+         *
+         * @param x
+         * @param y
+         * @return
+         */
+        public boolean contains(float x, float y) {
+            return obtainPolygon().contains(x, y);
+        }
+
         /**
          * 更新某个点的坐标信息
          *
@@ -1637,7 +1656,6 @@ public class DragXyView extends View {
         public void updatePoint(PointF point, int position) {
             if (position < size) {
                 mPoints[position] = point;
-                updateBoundaryPoints();
             }
         }
 
@@ -1652,7 +1670,18 @@ public class DragXyView extends View {
             if (position < size) {
                 mPoints[position].x = x;
                 mPoints[position].y = y;
-                updateBoundaryPoints();
+            }
+        }
+
+        /**
+         * 整体平移，边界点不变
+         *
+         * @param dx
+         * @param dy
+         */
+        public void offset(float dx, float dy) {
+            for (int i = 0; i < size; i++) {
+                mPoints[i].offset(dx, dy);
             }
         }
 
@@ -1678,32 +1707,34 @@ public class DragXyView extends View {
             return 0;
         }
 
+        /**
+         * 序列化格式与之前保存边界点字段时相同：点坐标、点数、四个边界点、四个边界点索引、文字。
+         * 边界点已改为根据点坐标计算，读取时跳过，写入时按当前点坐标计算后写入
+         */
         @Override
         public void writeToParcel(Parcel dest, int flags) {
             dest.writeTypedArray(this.mPoints, flags);
             dest.writeInt(this.size);
-            dest.writeParcelable(this.mLeftMostPoint, flags);
-            dest.writeParcelable(this.mTopMostPoint, flags);
-            dest.writeParcelable(this.mRightMostPoint, flags);
-            dest.writeParcelable(this.mBottomMostPoint, flags);
-            dest.writeInt(this.mLeftMostPointIndex);
-            dest.writeInt(this.mTopMostPointIndex);
-            dest.writeInt(this.mRightMostPointIndex);
-            dest.writeInt(this.mBottomMostPointIndex);
+            dest.writeParcelable(getLeftMostPoint(), flags);
+            dest.writeParcelable(getTopMostPoint(), flags);
+            dest.writeParcelable(getRightMostPoint(), flags);
+            dest.writeParcelable(getBottomMostPoint(), flags);
+            dest.writeInt(mPolygon.getLeftMostIndex());
+            dest.writeInt(mPolygon.getTopMostIndex());
+            dest.writeInt(mPolygon.getRightMostIndex());
+            dest.writeInt(mPolygon.getBottomMostIndex());
             dest.writeString(this.mText);
         }
 
         protected XyPoint(Parcel in) {
             this.mPoints = in.createTypedArray(PointF.CREATOR);
             this.size = in.readInt();
-            this.mLeftMostPoint = in.readParcelable(PointF.class.getClassLoader());
-            this.mTopMostPoint = in.readParcelable(PointF.class.getClassLoader());
-            this.mRightMostPoint = in.readParcelable(PointF.class.getClassLoader());
-            this.mBottomMostPoint = in.readParcelable(PointF.class.getClassLoader());
-            this.mLeftMostPointIndex = in.readInt();
-            this.mTopMostPointIndex = in.readInt();
-            this.mRightMostPointIndex = in.readInt();
-            this.mBottomMostPointIndex = in.readInt();
+            for (int i = 0; i < 4; i++) {
+                in.readParcelable(PointF.class.getClassLoader());
+            }
+            for (int i = 0; i < 4; i++) {
+                in.readInt();
+            }
             this.mText = in.readString();
         }
 
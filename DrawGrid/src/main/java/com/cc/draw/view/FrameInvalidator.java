@@ -0,0 +1,50 @@
+package com.cc.draw.view;
+
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * 按帧合并重绘请求，一个vsync周期内多次请求只会触发一次{@link View#invalidate()}
+ */
+class FrameInvalidator implements Choreographer.FrameCallback {
+
+    private final View view;
+    private boolean scheduled;
+
+    FrameInvalidator(View view) {
+        this.view = view;
+    }
+
+    /**
+     * 请求在下一帧重绘
+     */
+    void invalidate() {
+        if (!scheduled) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 取消尚未执行的重绘请求
+     */
+    void cancel() {
+        if (scheduled) {
+            scheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        onFrame();
+    }
+
+    /**
+     * 下一帧到来时执行，默认重绘整个View
+     */
+    void onFrame() {
+        view.invalidate();
+    }
+}
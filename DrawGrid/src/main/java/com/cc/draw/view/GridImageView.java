@@ -1,22 +1,41 @@
 package com.cc.draw.view;
 
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.RectF;
-import android.graphics.Region;
+import android.graphics.PointF;
+import android.graphics.Rect;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatImageView;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.cc.draw.grid.BrushStamp;
+import com.cc.draw.grid.CellRectMerger;
+import com.cc.draw.grid.ComponentLabeler;
+import com.cc.draw.grid.ContourTracer;
+import com.cc.draw.grid.FloodFill;
+import com.cc.draw.grid.GridAreaCodec;
+import com.cc.draw.grid.GridMask;
+import com.cc.draw.grid.GridMaskBuffer;
+import com.cc.draw.grid.GridMorphology;
+import com.cc.draw.grid.LassoResolver;
+import com.cc.draw.grid.MaskDelta;
+import com.cc.draw.grid.MaskHistory;
+import com.cc.draw.grid.PolygonRasterizer;
+import com.cc.draw.grid.StructuringElement;
 
 public class GridImageView extends AppCompatImageView {
 
@@ -26,9 +45,34 @@ public class GridImageView extends AppCompatImageView {
      */
     private int row, column;
     /**
-     * 每个网格的宽高
+     * 每个网格的宽高（内容坐标）
      */
     private float rectW, rectH;
+
+    /**
+     * 视口：屏幕坐标 = 内容坐标 * viewScale + viewTranslate。内容坐标即缩放为1时网格铺满View的坐标，
+     * 笔画、套索和网格计算都在内容坐标中进行，只有触摸输入和绘制需要换算
+     */
+    private float viewScale = 1f;
+    private float viewTranslateX, viewTranslateY;
+    private float maxScale = DEFAULT_MAX_SCALE;
+    private boolean zoomEnabled = true;
+    private ScaleGestureDetector scaleDetector;
+    /**
+     * 双指缩放或平移中，直到所有手指抬起前都不再绘制
+     */
+    private boolean gesturing;
+    private float lastFocusX, lastFocusY;
+    /**
+     * 单指笔画进行中，第二根手指按下时撤销该笔画
+     */
+    private boolean stroking;
+    /**
+     * 当前视口内可见的网格范围[visibleTop, visibleBottom) x [visibleLeft, visibleRight)
+     */
+    private int visibleTop, visibleLeft, visibleBottom, visibleRight;
+    private Matrix pathMatrix = new Matrix();
+    private Path screenPath = new Path();
     /**
      * 画笔
      */
@@ -36,6 +80,22 @@ public class GridImageView extends AppCompatImageView {
     private Paint rectPaint = new Paint();
     private Paint pathPaint = new Paint();
 
+    private static final int DEFAULT_LINE_COLOR = 0x80D8D8D8;
+    private static final int DEFAULT_FILL_COLOR = 0x66007FFF;
+    private static final int DEFAULT_PATH_COLOR = 0xFFFF0000;
+    private static final float DEFAULT_STROKE_WIDTH = 2f;
+    private static final float DEFAULT_MAX_SCALE = 8f;
+    private static final int DEFAULT_ASYNC_LASSO_CELLS = 512 * 512;
+    /**
+     * 旧的区域格式以int表示每一行，最多支持31列
+     */
+    private static final int LEGACY_MAX_COLUMNS = 31;
+
+    /**
+     * 可见网格线的屏幕坐标，依次为每条线的startX, startY, stopX, stopY，用于一次性绘制所有可见的网格线
+     */
+    private float[] gridLines = new float[0];
+
     /**
      * 绘制路径
      */
@@ -43,6 +103,69 @@ public class GridImageView extends AppCompatImageView {
     private boolean showPath;
     private boolean bDrawPath;
 
+    /**
+     * 绘制路径的顶点坐标，依次为x0, y0, x1, y1...，抬起时按此填充闭合区域
+     */
+    private float[] strokePoints = new float[256];
+    private int strokePointCount;
+    /**
+     * 绘制路径的边界
+     */
+    private float strokeLeft, strokeTop, strokeRight, strokeBottom;
+    private PolygonRasterizer polygonRasterizer = new PolygonRasterizer();
+    /**
+     * 网格数量不小于该值时套索闭合区域在后台计算
+     */
+    private int asyncLassoCells = DEFAULT_ASYNC_LASSO_CELLS;
+    private LassoResolver lassoResolver;
+    /**
+     * 后台计算中的套索：编号、填充还是擦除、路径范围。计算期间撤销记录保持打开，结果应用后与笔画合为一次操作
+     */
+    private boolean lassoPending;
+    private int lassoToken;
+    private boolean lassoFill;
+    private float lassoLeft, lassoTop, lassoRight, lassoBottom;
+    private final LassoResolver.Callback lassoCallback = new LassoResolver.Callback() {
+        @Override
+        public void onResolved(final int token, final GridMask area) {
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    applyLasso(token, area);
+                }
+            });
+        }
+    };
+    /**
+     * 绘制和擦除时的画笔，默认为单个网格
+     */
+    private BrushStamp brush = BrushStamp.disk(0);
+    /**
+     * 上一个触摸采样点的坐标
+     */
+    private float lastX, lastY;
+
+    /**
+     * 上一帧以来发生变化的网格范围（以网格为单位），下一帧只重新合并这部分网格所在的段
+     */
+    private final Rect dirtyCells = new Rect();
+    /**
+     * 抬起时绘制的路径会在下一次重绘时消失，按下时需要整体重绘
+     */
+    private boolean pathShown;
+
+    /**
+     * 按帧合并触摸过程中的重绘
+     */
+    private FrameInvalidator frameInvalidator = new FrameInvalidator(this) {
+        @Override
+        void onFrame() {
+            publishMask();
+            dispatchMaskChange(true);
+            invalidateDirtyCells();
+        }
+    };
+
     private int mode;
     /**
      * 模式：绘制
@@ -52,159 +175,357 @@ public class GridImageView extends AppCompatImageView {
      * 模式：擦除
      */
     public static int MODE_ERASE = 0x1001;
+    /**
+     * 模式：点击填充，点击未填充的网格时填充其所在的空白区域，点击已填充的网格时擦除其所在的区域
+     */
+    public static int MODE_FILL = 0x1002;
+
+    /**
+     * 变化通知：每次操作（一笔、一次撤销等）结束后通知一次
+     */
+    public static final int DELTA_PER_EDIT = 0;
+    /**
+     * 变化通知：绘制过程中每帧最多通知一次，操作结束后的剩余变化在下一帧通知
+     */
+    public static final int DELTA_PER_FRAME = 1;
+
+    private FloodFill floodFill = new FloodFill();
 
     /**
-     * 存放需要填充区域的矩形
+     * 每个网格的填充情况
      */
-    private List<RectF> fillRectList = new ArrayList<>();
+    private GridMask mask = new GridMask(0, 0);
 
     /**
-     * 二位数组，返回每个网格的填充情况：1代表填充，0代表未填充
+     * 将填充的网格合并为矩形后绘制
+     */
+    private CellRectMerger rectMerger = new CellRectMerger();
+    /**
+     * 合并后的矩形按每BAND_ROWS行一段缓存，以网格为单位，网格变化时只重新合并涉及的段；
+     * 视口和填充颜色变化时不需要重新合并。绘制时只画可见的段中与可见列相交的矩形
      */
-    private int[][] integerArray;
+    private static final int BAND_ROWS = 16;
+    private int[][] bandRects = new int[0][];
+    private int[] bandRectCounts = new int[0];
+    private boolean[] bandValid = new boolean[0];
+
+    /**
+     * 供native检测代码直接读取的网格数据，第一次调用{@link #getMaskBuffer()}后才创建
+     */
+    private GridMaskBuffer maskBuffer;
+
+    /**
+     * 撤销/重做记录，每一笔（按下到抬起）、{@link #clearAll()}和drawArea各记为一次操作
+     */
+    private MaskHistory history = new MaskHistory();
+
+    /**
+     * 网格变化监听，reportedMask为上次通知时的网格，用于计算增量
+     */
+    private OnMaskChangeListener maskChangeListener;
+    private int deltaDelivery = DELTA_PER_EDIT;
+    private GridMask reportedMask;
+    private int reportedVersion;
+    private MaskDelta maskDelta = new MaskDelta();
+
+    private GridMorphology morphology = new GridMorphology();
+
+    /**
+     * 连通区域标记，[componentsFromRow, componentsToRow)为上次标记之后变化的行，由笔画和每次操作结束时的撤销记录得到
+     */
+    private ComponentLabeler componentLabeler;
+    private int componentsFromRow, componentsToRow;
+    private ContourTracer contourTracer;
 
 
     public GridImageView(@NonNull Context context) {
         super(context);
         this.context = context;
-        setClickable(true);
+        init(context, null, 0);
     }
 
     public GridImageView(@NonNull Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
         this.context = context;
-        setClickable(true);
+        init(context, attrs, 0);
     }
 
     public GridImageView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         this.context = context;
-        setClickable(true);
+        init(context, attrs, defStyleAttr);
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        linePaint.setColor(Color.parseColor("#80D8D8D8"));
-        linePaint.setStrokeWidth(2f);
+    /**
+     * 初始化画笔，画笔只在这里和对应的set方法中配置，绘制时不再重复设置
+     *
+     * @param context
+     * @param attrs
+     * @param defStyleAttr
+     */
+    private void init(Context context, AttributeSet attrs, int defStyleAttr) {
+        setClickable(true);
+        int lineColor = DEFAULT_LINE_COLOR;
+        float lineWidth = DEFAULT_STROKE_WIDTH;
+        int fillColor = DEFAULT_FILL_COLOR;
+        int pathColor = DEFAULT_PATH_COLOR;
+        float pathWidth = DEFAULT_STROKE_WIDTH;
+        if (attrs != null) {
+            final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.GridImageView, defStyleAttr, 0);
+            lineColor = a.getColor(R.styleable.GridImageView_givLineColor, lineColor);
+            lineWidth = a.getDimension(R.styleable.GridImageView_givLineWidth, lineWidth);
+            fillColor = a.getColor(R.styleable.GridImageView_givFillColor, fillColor);
+            pathColor = a.getColor(R.styleable.GridImageView_givPathColor, pathColor);
+            pathWidth = a.getDimension(R.styleable.GridImageView_givPathWidth, pathWidth);
+            a.recycle();
+        }
+
+        linePaint.setColor(lineColor);
+        linePaint.setStrokeWidth(lineWidth);
         linePaint.setStyle(Paint.Style.STROKE);
 
-        rectPaint.setColor(Color.parseColor("#66007FFF"));
+        rectPaint.setColor(fillColor);
         rectPaint.setStyle(Paint.Style.FILL);
 
-        pathPaint.setColor(Color.RED);
-        pathPaint.setStrokeWidth(2f);
+        pathPaint.setColor(pathColor);
+        pathPaint.setStrokeWidth(pathWidth);
         pathPaint.setStyle(Paint.Style.STROKE);
 
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateGridLayout();
+        clampViewport();
+    }
+
+    /**
+     * 根据View的尺寸和行列数计算网格宽高，只在尺寸或行列数变化时调用
+     */
+    private void updateGridLayout() {
         int col = getColumn();
         int ro = getRow();
-        if (col > 0) {
-            rectW = 1.0f * getWidth() / col;
-            for (int i = 0; i < col; i++) {
-                canvas.drawLine(i * rectW, 0, i * rectW, getHeight(), linePaint);
+        rectW = col > 0 ? 1.0f * getWidth() / col : 0;
+        rectH = ro > 0 ? 1.0f * getHeight() / ro : 0;
+
+        //每条线4个坐标，竖线col条，横线ro条，实际只使用可见的部分
+        int count = (Math.max(col, 0) + Math.max(ro, 0)) << 2;
+        if (gridLines.length < count) {
+            gridLines = new float[count];
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        updateVisibleCells();
+        if (visibleLeft >= visibleRight || visibleTop >= visibleBottom) {
+            return;
+        }
+        drawGridLines(canvas);
+
+        drawCells(canvas);
+
+        if (lassoPending) {
+            //计算完成前先显示闭合路径作为临时效果
+            Path path = drawPath;
+            if (viewScale != 1f || viewTranslateX != 0 || viewTranslateY != 0) {
+                drawPath.transform(pathMatrix, screenPath);
+                path = screenPath;
+            }
+            if (lassoFill) {
+                canvas.drawPath(path, rectPaint);
             }
+            canvas.drawPath(path, pathPaint);
+        } else if (bDrawPath && isShowPath()) {
+            if (viewScale == 1f && viewTranslateX == 0 && viewTranslateY == 0) {
+                canvas.drawPath(drawPath, pathPaint);
+            } else {
+                drawPath.transform(pathMatrix, screenPath);
+                canvas.drawPath(screenPath, pathPaint);
+            }
+            bDrawPath = false;
+        }
+    }
+
+    /**
+     * 绘制可见范围内的填充网格，失效的段先重新合并
+     */
+    private void drawCells(Canvas canvas) {
+        int ro = getRow();
+        int bandCount = (ro + BAND_ROWS - 1) / BAND_ROWS;
+        if (bandValid.length != bandCount) {
+            bandRects = new int[bandCount][];
+            bandRectCounts = new int[bandCount];
+            bandValid = new boolean[bandCount];
         }
-        if (ro > 0) {
-            rectH = 1.0f * getHeight() / ro;
-            for (int i = 0; i < ro; i++) {
-                canvas.drawLine(0, i * rectH, getWidth(), i * rectH, linePaint);
+        float cellW = rectW * viewScale;
+        float cellH = rectH * viewScale;
+        for (int band = visibleTop / BAND_ROWS; band * BAND_ROWS < visibleBottom; band++) {
+            if (!bandValid[band]) {
+                int top = band * BAND_ROWS;
+                int count = rectMerger.merge(mask, top, 0, Math.min(top + BAND_ROWS, ro), getColumn());
+                int length = count << 2;
+                if (bandRects[band] == null || bandRects[band].length < length) {
+                    bandRects[band] = new int[length];
+                }
+                System.arraycopy(rectMerger.getRects(), 0, bandRects[band], 0, length);
+                bandRectCounts[band] = count;
+                bandValid[band] = true;
+            }
+            int[] rects = bandRects[band];
+            for (int i = 0, count = bandRectCounts[band] << 2; i < count; i += 4) {
+                if (rects[i] >= visibleRight || rects[i + 2] <= visibleLeft
+                        || rects[i + 1] >= visibleBottom || rects[i + 3] <= visibleTop) {
+                    continue;
+                }
+                canvas.drawRect(rects[i] * cellW + viewTranslateX, rects[i + 1] * cellH + viewTranslateY,
+                        rects[i + 2] * cellW + viewTranslateX, rects[i + 3] * cellH + viewTranslateY, rectPaint);
             }
         }
+    }
+
+    /**
+     * 网格整体变化后，下一次绘制时重新合并所有段
+     */
+    private void invalidateCells() {
+        Arrays.fill(bandValid, false);
+        invalidate();
+    }
+
+    /**
+     * 按视口计算可见的网格范围
+     */
+    private void updateVisibleCells() {
+        int col = getColumn();
+        int ro = getRow();
+        if (col <= 0 || ro <= 0 || rectW <= 0 || rectH <= 0) {
+            visibleLeft = visibleTop = visibleRight = visibleBottom = 0;
+            return;
+        }
+        float cellW = rectW * viewScale;
+        float cellH = rectH * viewScale;
+        visibleLeft = Math.max((int) Math.floor(-viewTranslateX / cellW), 0);
+        visibleTop = Math.max((int) Math.floor(-viewTranslateY / cellH), 0);
+        visibleRight = Math.min((int) Math.ceil((getWidth() - viewTranslateX) / cellW), col);
+        visibleBottom = Math.min((int) Math.ceil((getHeight() - viewTranslateY) / cellH), ro);
+    }
 
-        for (int i = 0; i < fillRectList.size(); i++) {
-            canvas.drawRect(fillRectList.get(i), rectPaint);
+    /**
+     * 只生成并绘制可见范围内的网格线
+     */
+    private void drawGridLines(Canvas canvas) {
+        float cellW = rectW * viewScale;
+        float cellH = rectH * viewScale;
+        float top = Math.max(viewTranslateY, 0);
+        float bottom = Math.min(viewTranslateY + getHeight() * viewScale, getHeight());
+        float left = Math.max(viewTranslateX, 0);
+        float right = Math.min(viewTranslateX + getWidth() * viewScale, getWidth());
+        int index = 0;
+        for (int i = visibleLeft; i < visibleRight; i++) {
+            float x = i * cellW + viewTranslateX;
+            gridLines[index++] = x;
+            gridLines[index++] = top;
+            gridLines[index++] = x;
+            gridLines[index++] = bottom;
+        }
+        for (int i = visibleTop; i < visibleBottom; i++) {
+            float y = i * cellH + viewTranslateY;
+            gridLines[index++] = left;
+            gridLines[index++] = y;
+            gridLines[index++] = right;
+            gridLines[index++] = y;
+        }
+        if (index > 0) {
+            canvas.drawLines(gridLines, 0, index, linePaint);
         }
+    }
 
-        if (bDrawPath && isShowPath()) {
-            canvas.drawPath(drawPath, pathPaint);
-            bDrawPath = false;
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        frameInvalidator.cancel();
+        cancelLasso();
+        if (lassoResolver != null) {
+            lassoResolver.shutdown();
+            lassoResolver = null;
         }
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        if (getRow() <= 0 || getColumn() <= 0) {
+        if (getRow() <= 0 || getColumn() <= 0 || rectW <= 0 || rectH <= 0) {
             return false;
         }
-        float pointX = event.getX();
-        float pointY = event.getY();
-        if (pointX > getWidth()) {
-            pointX = getWidth() - 1;
-        } else if (pointX < 0) {
-            pointX = 0;
-        }
-        if (pointY > getHeight()) {
-            pointY = getHeight() - 1;
-        } else if (pointY < 0) {
-            pointY = 0;
-        }
-        int indexColumn = (int) (pointX / rectW);
-        int indexRow = (int) (pointY / rectH);
-        if (indexRow >= getRow() || indexColumn >= getColumn()) {
-            return false;
+        if (handleViewportGesture(event)) {
+            return true;
+        }
+        float pointX = toContentX(event.getX());
+        float pointY = toContentY(event.getY());
+
+        if (isFillMode()) {
+            if (event.getAction() == MotionEvent.ACTION_DOWN) {
+                floodFillCell((int) (pointY / rectH), (int) (pointX / rectW));
+            }
+            return super.onTouchEvent(event);
         }
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
                 drawPath.reset();
                 drawPath.moveTo(pointX, pointY);
+                strokePointCount = 0;
+                addStrokePoint(pointX, pointY);
+                beginEdit();
+                stroking = true;
 
-                RectF rectf = new RectF(indexColumn * rectW, indexRow * rectH, (indexColumn + 1) * rectW, (indexRow + 1) * rectH);
-                if (isDrawMode()) {
-                    if (!fillRectList.contains(rectf)) {
-                        fillRectList.add(rectf);
-                        fillRect(indexRow, indexColumn, true);
-                    }
-                } else {
-                    fillRectList.remove(rectf);
-                    fillRect(indexRow, indexColumn, false);
+                fillCell((int) (pointY / rectH), (int) (pointX / rectW), isDrawMode());
+                if (pathShown) {
+                    pathShown = false;
+                    invalidate();
                 }
-                invalidate();
+                markDirty(pointX, pointY, pointX, pointY);
+                frameInvalidator.invalidate();
                 break;
             case MotionEvent.ACTION_MOVE:
-                drawPath.lineTo(pointX, pointY);
-
-                rectf = new RectF(indexColumn * rectW, indexRow * rectH, (indexColumn + 1) * rectW, (indexRow + 1) * rectH);
-                if (isDrawMode()) {
-                    if (!fillRectList.contains(rectf)) {
-                        fillRectList.add(rectf);
-                        fillRect(indexRow, indexColumn, true);
-                    }
-                } else {
-                    fillRectList.remove(rectf);
-                    fillRect(indexRow, indexColumn, false);
+                //依次处理两次事件之间缓存的历史采样点，保证笔画的精度
+                boolean fill = isDrawMode();
+                for (int i = 0, historySize = event.getHistorySize(); i < historySize; i++) {
+                    handleMovePoint(toContentX(event.getHistoricalX(i)), toContentY(event.getHistoricalY(i)), fill);
                 }
-                invalidate();
+                handleMovePoint(pointX, pointY, fill);
+                frameInvalidator.invalidate();
                 break;
             case MotionEvent.ACTION_CANCEL:
 //                Log.e("chenchen", "onTouchEvent: cancel");
+                endEdit();
+                stroking = false;
                 break;
             case MotionEvent.ACTION_UP:
                 bDrawPath = true;
-                drawPath.lineTo(pointX, pointY);
+                handleMovePoint(pointX, pointY, isDrawMode());
                 drawPath.close();
-                RectF rectF = new RectF();
-                drawPath.computeBounds(rectF, true);
-                Region region = new Region();
-                region.setPath(drawPath, new Region((int) rectF.left, (int) rectF.top, (int) rectF.right, (int) rectF.bottom));
-
-                for (int i = 0; i < getRow(); i++) {
-                    for (int j = 0; j < getColumn(); j++) {
-                        RectF tempRectF = new RectF(j * rectW, i * rectH, (j + 1) * rectW, (i + 1) * rectH);
-                        if (region.contains((int) tempRectF.centerX(), (int) tempRectF.centerY())) {
-                            if (isDrawMode()) {
-                                if (!fillRectList.contains(tempRectF)) {
-                                    fillRectList.add(tempRectF);
-                                    fillRect(i, j, true);
-                                }
-                            } else {
-                                fillRectList.remove(tempRectF);
-                                fillRect(i, j, false);
-                            }
-                        }
-                    }
+                stroking = false;
+                if ((long) mask.getRows() * mask.getColumns() >= asyncLassoCells) {
+                    submitLasso();
+                    frameInvalidator.invalidate();
+                    invalidate();
+                    break;
                 }
-                invalidate();
+                //按扫描线直接填充闭合区域内的网格
+                polygonRasterizer.fill(strokePoints, strokePointCount, rectW, rectH, mask, isDrawMode());
+                markDirty(strokeLeft, strokeTop, strokeRight, strokeBottom);
+                pathShown = isShowPath();
+                endEdit();
+                frameInvalidator.invalidate();
                 break;
             default:
                 break;
@@ -212,60 +533,842 @@ public class GridImageView extends AppCompatImageView {
         return super.onTouchEvent(event);
     }
 
-    public void clearAll() {
+    /**
+     * 把闭合路径交给后台计算，笔画本身已经画好，撤销记录等结果应用后再结束
+     */
+    private void submitLasso() {
+        if (lassoResolver == null) {
+            lassoResolver = new LassoResolver();
+        }
+        lassoPending = true;
+        lassoFill = isDrawMode();
+        lassoLeft = strokeLeft;
+        lassoTop = strokeTop;
+        lassoRight = strokeRight;
+        lassoBottom = strokeBottom;
+        lassoToken = lassoResolver.submit(strokePoints, strokePointCount, rectW, rectH, mask.getRows(), mask.getColumns(),
+                polygonRasterizer.getFillPolicy(), polygonRasterizer.getMinCoverage(), lassoCallback);
+    }
+
+    /**
+     * 在UI线程中应用后台计算的结果，期间已被取消或被新的笔画取代时丢弃
+     */
+    private void applyLasso(int token, GridMask area) {
+        if (!lassoPending || token != lassoToken || lassoResolver == null) {
+            return;
+        }
+        lassoPending = false;
+        if (area.getRows() == mask.getRows() && area.getColumns() == mask.getColumns()) {
+            if (lassoFill) {
+                mask.or(area);
+            } else {
+                mask.andNot(area);
+            }
+            markDirty(lassoLeft, lassoTop, lassoRight, lassoBottom);
+        }
+        lassoResolver.recycle(area);
+        endEdit();
+        bDrawPath = true;
+        pathShown = isShowPath();
+        frameInvalidator.invalidate();
+        //去掉临时效果
+        invalidate();
+    }
+
+    /**
+     * 放弃后台计算中的套索，已画好的笔画作为一次操作保留
+     */
+    private void cancelLasso() {
+        if (!lassoPending) {
+            return;
+        }
+        lassoPending = false;
+        lassoResolver.cancel();
+        endEdit();
+        invalidate();
+    }
+
+    /**
+     * 结束一次可撤销的修改并通知变化
+     */
+    private void endEdit() {
+        history.end(mask);
+        markComponentsDirty(history.getChangedFromRow(), history.getChangedToRow());
+        dispatchMaskChange(false);
+    }
+
+    /**
+     * 开始一次可撤销的修改，先结束后台计算中的套索
+     */
+    private void beginEdit() {
+        cancelLasso();
+        history.begin(mask);
+    }
+
+    /**
+     * 网格数量不小于minCells时，松手后套索闭合区域在后台线程计算，完成前先显示闭合路径，
+     * 期间开始新的笔画或进行其它修改会放弃这次计算。默认 512 * 512
+     *
+     * @param minCells 为0时总是在后台计算，为{@link Integer#MAX_VALUE}时总是在UI线程计算
+     */
+    public void setAsyncLassoThreshold(int minCells) {
+        asyncLassoCells = Math.max(minCells, 0);
+    }
+
+    /**
+     * 处理一个移动采样点：记录路径，并连接上一个采样点，滑动过快时也不会漏掉经过的网格
+     */
+    private void handleMovePoint(float pointX, float pointY, boolean fill) {
+        drawPath.lineTo(pointX, pointY);
+        markDirty(Math.min(lastX, pointX), Math.min(lastY, pointY), Math.max(lastX, pointX), Math.max(lastY, pointY));
+        brush.drawLine(lastX, lastY, pointX, pointY, rectW, rectH, mask, fill);
+        addStrokePoint(pointX, pointY);
+    }
+
+    /**
+     * 记录像素区域[left, right] x [top, bottom]内的网格发生了变化，向外多扩展一格以包含网格线上的情况，
+     * 再按画笔半径扩展
+     */
+    private void markDirty(float left, float top, float right, float bottom) {
+        int expand = 1 + brush.getRadius();
+        int fromRow = (int) (top / rectH) - expand;
+        int toRow = (int) (bottom / rectH) + 1 + expand;
+        dirtyCells.union((int) (left / rectW) - expand, fromRow, (int) (right / rectW) + 1 + expand, toRow);
+        markComponentsDirty(fromRow, toRow);
+    }
+
+    /**
+     * 记录[fromRow, toRow)行发生了变化，下次获取连通区域时只更新这些行
+     */
+    private void markComponentsDirty(int fromRow, int toRow) {
+        if (fromRow >= toRow) {
+            return;
+        }
+        if (componentsFromRow >= componentsToRow) {
+            componentsFromRow = fromRow;
+            componentsToRow = toRow;
+        } else {
+            componentsFromRow = Math.min(componentsFromRow, fromRow);
+            componentsToRow = Math.max(componentsToRow, toRow);
+        }
+    }
+
+    /**
+     * 只重新合并发生变化的网格所在的段
+     */
+    private void invalidateDirtyCells() {
+        if (dirtyCells.isEmpty()) {
+            return;
+        }
+        int from = Math.max(dirtyCells.top, 0) / BAND_ROWS;
+        int to = Math.min((Math.max(dirtyCells.bottom, 1) - 1) / BAND_ROWS + 1, bandValid.length);
+        for (int band = from; band < to; band++) {
+            bandValid[band] = false;
+        }
+        dirtyCells.setEmpty();
+        invalidate();
+    }
+
+    /**
+     * 处理双指缩放和平移。第二根手指按下时撤销第一根手指进行中的笔画，之后直到所有手指抬起都作为手势处理
+     *
+     * @return 事件是否已作为手势处理
+     */
+    private boolean handleViewportGesture(MotionEvent event) {
+        if (!zoomEnabled) {
+            return false;
+        }
+        scaleDetector.onTouchEvent(event);
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_POINTER_DOWN && !gesturing) {
+            cancelStroke();
+            gesturing = true;
+        }
+        if (!gesturing) {
+            return false;
+        }
+        switch (action) {
+            case MotionEvent.ACTION_POINTER_DOWN:
+                updateFocus(event, -1);
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                //抬起的手指不再参与计算，避免焦点跳动
+                updateFocus(event, event.getActionIndex());
+                break;
+            case MotionEvent.ACTION_MOVE:
+                float focusX = lastFocusX;
+                float focusY = lastFocusY;
+                updateFocus(event, -1);
+                panBy(lastFocusX - focusX, lastFocusY - focusY);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                gesturing = false;
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * 计算除skipIndex之外所有手指的中心点
+     */
+    private void updateFocus(MotionEvent event, int skipIndex) {
+        float sumX = 0;
+        float sumY = 0;
+        int count = 0;
+        for (int i = 0, pointerCount = event.getPointerCount(); i < pointerCount; i++) {
+            if (i == skipIndex) {
+                continue;
+            }
+            sumX += event.getX(i);
+            sumY += event.getY(i);
+            count++;
+        }
+        if (count > 0) {
+            lastFocusX = sumX / count;
+            lastFocusY = sumY / count;
+        }
+    }
+
+    /**
+     * 放弃进行中的笔画，网格恢复到按下前的状态
+     */
+    private void cancelStroke() {
+        if (!stroking) {
+            return;
+        }
+        stroking = false;
         drawPath.reset();
-        fillRectList.clear();
-        init(getRow(), getColumn());
+        strokePointCount = 0;
+        if (history.cancel(mask)) {
+            //连通区域可能已在笔画进行中更新过，恢复的行需要重新计算
+            markComponentsDirty(history.getChangedFromRow(), history.getChangedToRow());
+            publishMask();
+            dispatchMaskChange(false);
+            invalidateCells();
+        }
+    }
+
+    private void zoomBy(float factor, float focusX, float focusY) {
+        float scale = Math.max(1f, Math.min(viewScale * factor, maxScale));
+        factor = scale / viewScale;
+        //保持焦点下的内容位置不变
+        viewTranslateX = focusX - (focusX - viewTranslateX) * factor;
+        viewTranslateY = focusY - (focusY - viewTranslateY) * factor;
+        viewScale = scale;
+        clampViewport();
+        invalidate();
+    }
+
+    private void panBy(float dx, float dy) {
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        viewTranslateX += dx;
+        viewTranslateY += dy;
+        clampViewport();
+        invalidate();
+    }
+
+    /**
+     * 限制视口不超出网格范围
+     */
+    private void clampViewport() {
+        viewTranslateX = Math.max(Math.min(viewTranslateX, 0), getWidth() * (1 - viewScale));
+        viewTranslateY = Math.max(Math.min(viewTranslateY, 0), getHeight() * (1 - viewScale));
+        pathMatrix.setScale(viewScale, viewScale);
+        pathMatrix.postTranslate(viewTranslateX, viewTranslateY);
+    }
+
+    /**
+     * 屏幕坐标转换为内容坐标，并限制在View范围内
+     */
+    private float toContentX(float x) {
+        return clampX((x - viewTranslateX) / viewScale);
+    }
+
+    private float toContentY(float y) {
+        return clampY((y - viewTranslateY) / viewScale);
+    }
+
+    /**
+     * 设置是否允许双指缩放和平移，默认允许。禁止时恢复为不缩放
+     *
+     * @param zoomEnabled
+     */
+    public void setZoomEnabled(boolean zoomEnabled) {
+        this.zoomEnabled = zoomEnabled;
+        if (!zoomEnabled) {
+            gesturing = false;
+            resetViewport();
+        }
+    }
+
+    public boolean isZoomEnabled() {
+        return zoomEnabled;
+    }
+
+    /**
+     * 设置最大缩放倍数，默认{@link #DEFAULT_MAX_SCALE}
+     *
+     * @param maxScale 不小于1
+     */
+    public void setMaxScale(float maxScale) {
+        this.maxScale = Math.max(maxScale, 1f);
+        if (viewScale > this.maxScale) {
+            zoomBy(this.maxScale / viewScale, 0, 0);
+        }
+    }
+
+    /**
+     * 当前缩放倍数
+     */
+    public float getScale() {
+        return viewScale;
+    }
+
+    /**
+     * 恢复为不缩放，整个网格铺满View
+     */
+    public void resetViewport() {
+        viewScale = 1f;
+        viewTranslateX = 0;
+        viewTranslateY = 0;
+        clampViewport();
         invalidate();
     }
 
+    private float clampX(float x) {
+        if (x >= getWidth()) {
+            return getWidth() - 1;
+        }
+        return x < 0 ? 0 : x;
+    }
+
+    private float clampY(float y) {
+        if (y >= getHeight()) {
+            return getHeight() - 1;
+        }
+        return y < 0 ? 0 : y;
+    }
+
+    private void addStrokePoint(float x, float y) {
+        int index = strokePointCount << 1;
+        if (index + 2 > strokePoints.length) {
+            float[] newPoints = new float[strokePoints.length << 1];
+            System.arraycopy(strokePoints, 0, newPoints, 0, index);
+            strokePoints = newPoints;
+        }
+        strokePoints[index] = x;
+        strokePoints[index + 1] = y;
+        if (strokePointCount == 0) {
+            strokeLeft = strokeRight = x;
+            strokeTop = strokeBottom = y;
+        } else {
+            strokeLeft = Math.min(strokeLeft, x);
+            strokeRight = Math.max(strokeRight, x);
+            strokeTop = Math.min(strokeTop, y);
+            strokeBottom = Math.max(strokeBottom, y);
+        }
+        strokePointCount++;
+        lastX = x;
+        lastY = y;
+    }
+
+    /**
+     * 点击填充：翻转点击的网格所在的连通区域，作为一次可撤销的操作
+     */
+    private void floodFillCell(int row, int column) {
+        beginEdit();
+        if (floodFill.fill(mask, row, column) > 0) {
+            dirtyCells.union(floodFill.getLeft() - 1, floodFill.getTop() - 1,
+                    floodFill.getRight() + 1, floodFill.getBottom() + 1);
+        }
+        endEdit();
+        drawPath.reset();
+        if (pathShown) {
+            pathShown = false;
+            invalidate();
+        }
+        frameInvalidator.invalidate();
+    }
+
+    /**
+     * 设置{@link #MODE_FILL}的连通方式，默认上下左右相邻才算连通
+     *
+     * @param connectivity {@link ComponentLabeler#CONNECTIVITY_4} 或 {@link ComponentLabeler#CONNECTIVITY_8}
+     */
+    public void setFloodFillConnectivity(int connectivity) {
+        floodFill = new FloodFill(connectivity);
+    }
+
+    /**
+     * 以网格为中心按画笔设置填充状态
+     */
+    private void fillCell(int row, int column, boolean fill) {
+        brush.stamp(mask, row, column, fill);
+    }
+
+    /**
+     * 设置绘制和擦除时圆形画笔的半径（网格），为0时每次只处理经过的网格
+     *
+     * @param radius
+     */
+    public void setBrushRadius(int radius) {
+        setBrush(BrushStamp.disk(radius));
+    }
+
+    /**
+     * 设置绘制和擦除时的画笔，例如 {@code BrushStamp.square(2)}
+     *
+     * @param brush
+     */
+    public void setBrush(BrushStamp brush) {
+        this.brush = brush;
+    }
+
+    public void clearAll() {
+        drawPath.reset();
+        beginEdit();
+        mask.clearAll();
+        endEdit();
+        publishMask();
+        invalidateCells();
+    }
+
     public void drawGrid(int row, int column) {
+        resetGrid(row, column);
+        publishMask();
+        dispatchMaskChange(false);
+        invalidateCells();
+    }
+
+    /**
+     * 切换网格的行列数并保留已填充的区域，例如摄像头切换码流后按新的分辨率重新划分网格
+     *
+     * @param resamplePolicy {@link GridMask#RESAMPLE_ANY}、{@link GridMask#RESAMPLE_MAJORITY} 或 {@link GridMask#RESAMPLE_ALL}
+     */
+    public void drawGrid(int row, int column, int resamplePolicy) {
+        GridMask old = new GridMask(mask);
+        resetGrid(row, column);
+        old.resampleTo(mask, resamplePolicy);
+        //重采样完成后只发布和通知一次，不会先出现一次清空的网格
+        publishMask();
+        dispatchMaskChange(false);
+        invalidateCells();
+    }
+
+    /**
+     * 切换行列数并清空网格，不发布也不通知变化
+     */
+    private void resetGrid(int row, int column) {
         init(row, column);
+        //尺寸变小或不变时复用原有存储，切换不同分辨率的摄像头时不会反复分配
+        cancelLasso();
+        mask.resize(row, column);
+        history.clear();
+        markComponentsDirty(0, row);
+        updateGridLayout();
+        resetViewport();
         setMode(MODE_DRAW);
-        invalidate();
     }
 
+    /**
+     * 绘制填充区域，支持{@link #getArea()}返回的文本格式和旧的逗号分隔格式，已填充的网格保持不变
+     *
+     * @param area
+     */
     public void drawArea(String area) {
-        if (TextUtils.isEmpty(area) && !area.contains(",")) {
+        if (TextUtils.isEmpty(area)) {
             return;
         }
         try {
-            String[] split  = area.split(",");
-            int col = getColumn();
-            for (int i = 0; i < split.length; i++) {
-                String str = Integer.toBinaryString(Integer.parseInt(split[i]));
-                if (col != str.length()) {
-                    StringBuffer stringBuffer = new StringBuffer();
-                    for (int j = 0; j < col - str.length(); j++) {
-                        stringBuffer.append("0");
-                    }
-                    stringBuffer.append(str);
-                    str = stringBuffer.toString();
-                }
+            GridMask areaMask = GridAreaCodec.fromText(area, getColumn());
+            beginEdit();
+            mask.or(areaMask);
+            endEdit();
+            publishMask();
+            invalidateCells();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-                for (int j = 0; j < col; j++) {
-                    if ("1".equals(String.valueOf(str.charAt(j)))) {
-                        RectF rectf = new RectF(j * rectW, i * rectH, (j + 1) * rectW, (i + 1) * rectH);
-                        if (!fillRectList.contains(rectf)) {
-                            fillRectList.add(rectf);
-                            fillRect(i, j, true);
-                        }
-                    }
-                }
-            }
-            invalidate();
-        }catch (Exception e) {
+    /**
+     * 绘制填充区域，数据格式见{@link GridAreaCodec}
+     *
+     * @param area
+     */
+    public void drawArea(byte[] area) {
+        if (area == null || area.length == 0) {
+            return;
+        }
+        try {
+            GridMask areaMask = GridAreaCodec.decode(area);
+            beginEdit();
+            mask.or(areaMask);
+            endEdit();
+            publishMask();
+            invalidateCells();
+        } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * 获取填充区域
+     * <p>
+     * 列数不超过31时返回旧格式：每行以十进制数表示（二进制最高位对应第0列），行之间以逗号分隔；
+     * 超过31列时返回{@link GridAreaCodec#toText(GridMask)}的文本格式，两种格式都可以传给{@link #drawArea(String)}
+     *
+     * @return
+     */
+    public String getArea() {
+        return formatArea(mask);
+    }
+
+    static String formatArea(GridMask mask) {
+        if (mask.getColumns() <= LEGACY_MAX_COLUMNS) {
+            return GridAreaCodec.toLegacy(mask);
+        }
+        return GridAreaCodec.toText(mask);
+    }
+
+    /**
+     * 获取二进制格式的填充区域，数据格式见{@link GridAreaCodec}
+     *
+     * @return
+     */
+    public byte[] getAreaData() {
+        return GridAreaCodec.encode(mask);
+    }
+
+    /**
+     * 获取网格的填充状态，只用于读取，修改请使用本类的方法，否则撤销记录、变化通知和连通区域都不会更新
+     *
+     * @return
+     */
+    public GridMask getMask() {
+        return mask;
+    }
+
+    /**
+     * 获取与native共享的网格数据，内存布局见{@link GridMaskBuffer}，native端可使用 grid_mask.h 读取。
+     * 绘制过程中每帧发布一次变化，网格变大后会返回新的buffer，旧buffer会被标记为{@link GridMaskBuffer#FLAG_DETACHED}
+     *
+     * @return direct ByteBuffer
+     */
+    public ByteBuffer getMaskBuffer() {
+        if (maskBuffer == null) {
+            maskBuffer = new GridMaskBuffer();
+        }
+        maskBuffer.publish(mask);
+        return maskBuffer.getBuffer();
+    }
+
+    /**
+     * 获取填充区域中互不相连的各个区域及其网格数量、外接矩形和重心。
+     * 网格变化后只更新笔画和操作记录下的变化行附近的区域，不再比较整个网格。返回的对象会被复用，网格再次变化后需重新调用
+     *
+     * @return
+     */
+    public ComponentLabeler getComponents() {
+        if (componentLabeler == null) {
+            componentLabeler = new ComponentLabeler();
+            componentLabeler.label(mask);
+        } else {
+            //没有变化时直接返回，尺寸变化时整体重新标记
+            componentLabeler.update(mask, componentsFromRow, componentsToRow);
+        }
+        componentsFromRow = componentsToRow = 0;
+        return componentLabeler;
+    }
+
+    /**
+     * 提取填充区域的轮廓（包括孔洞），顶点坐标以网格为单位，轮廓所属的区域编号与{@link #getComponents()}一致。
+     * 返回的对象会被复用
+     *
+     * @param tolerance 简化容差（网格），为0时保留所有拐点
+     * @return
+     */
+    public ContourTracer getAreaContours(float tolerance) {
+        if (contourTracer == null) {
+            contourTracer = new ContourTracer();
+        }
+        contourTracer.trace(mask, tolerance, getComponents());
+        return contourTracer;
+    }
+
+    /**
+     * 把填充区域转换为多边形，每个区域一个外轮廓，孔洞需通过{@link #getAreaContours(float)}获取
+     *
+     * @param tolerance  简化容差（网格），为0时保留所有拐点
+     * @param normalized 为true时返回0~1的归一化坐标，否则为View坐标
+     * @return
+     */
+    public List<DragXyView.XyPoint> getAreaPolygons(float tolerance, boolean normalized) {
+        ContourTracer tracer = getAreaContours(tolerance);
+        float cellWidth = normalized ? 1.0f / mask.getColumns() : rectW;
+        float cellHeight = normalized ? 1.0f / mask.getRows() : rectH;
+        List<DragXyView.XyPoint> polygons = new ArrayList<>();
+        for (int i = 0; i < tracer.getContourCount(); i++) {
+            if (tracer.isHole(i)) {
+                continue;
+            }
+            int count = tracer.getPointCount(i);
+            PointF[] points = new PointF[count];
+            for (int j = 0; j < count; j++) {
+                points[j] = new PointF(tracer.getX(i, j) * cellWidth, tracer.getY(i, j) * cellHeight);
+            }
+            polygons.add(new DragXyView.XyPoint(points));
+        }
+        return polygons;
+    }
+
+    /**
+     * 膨胀填充区域，例如 {@code dilateArea(StructuringElement.square(1))} 向外扩大一格
+     *
+     * @param element
+     */
+    public void dilateArea(StructuringElement element) {
+        beginEdit();
+        morphology.dilate(mask, element);
+        endAreaEdit();
+    }
+
+    /**
+     * 腐蚀填充区域，贴着网格边缘的部分不会从边上缩小
+     *
+     * @param element
+     */
+    public void erodeArea(StructuringElement element) {
+        beginEdit();
+        morphology.erode(mask, element);
+        endAreaEdit();
+    }
+
+    /**
+     * 对填充区域做开运算，去除比结构元素小的噪点
+     *
+     * @param element
+     */
+    public void openArea(StructuringElement element) {
+        beginEdit();
+        morphology.open(mask, element);
+        endAreaEdit();
+    }
+
+    /**
+     * 对填充区域做闭运算，填平比结构元素小的缝隙
+     *
+     * @param element
+     */
+    public void closeArea(StructuringElement element) {
+        beginEdit();
+        morphology.close(mask, element);
+        endAreaEdit();
+    }
+
+    /**
+     * 填充区域内部的孔洞
+     */
+    public void fillAreaHoles() {
+        beginEdit();
+        morphology.fillHoles(mask);
+        endAreaEdit();
+    }
+
+    private void endAreaEdit() {
+        endEdit();
+        publishMask();
+        invalidateCells();
+    }
+
+    /**
+     * 撤销上一笔
+     *
+     * @return 是否有可撤销的操作
+     */
+    public boolean undo() {
+        cancelLasso();
+        return applyHistory(history.undo(mask));
+    }
+
+    /**
+     * 重做上一次撤销的操作
+     *
+     * @return 是否有可重做的操作
+     */
+    public boolean redo() {
+        cancelLasso();
+        return applyHistory(history.redo(mask));
+    }
+
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * 设置撤销记录的内存上限（字节），超出时丢弃最早的记录，默认{@link MaskHistory#DEFAULT_MAX_BYTES}
+     *
+     * @param maxBytes
+     */
+    public void setUndoMemoryLimit(int maxBytes) {
+        history.setMaxBytes(maxBytes);
+    }
+
+    private boolean applyHistory(boolean changed) {
+        if (changed) {
+            markComponentsDirty(history.getChangedFromRow(), history.getChangedToRow());
+            drawPath.reset();
+            pathShown = false;
+            publishMask();
+            dispatchMaskChange(false);
+            invalidateCells();
+        }
+        return changed;
+    }
+
+    /**
+     * 设置网格变化监听，每次操作结束后通知一次，见{@link #setOnMaskChangeListener(OnMaskChangeListener, int)}
+     *
+     * @param listener
+     */
+    public void setOnMaskChangeListener(OnMaskChangeListener listener) {
+        setOnMaskChangeListener(listener, DELTA_PER_EDIT);
+    }
+
+    /**
+     * 设置网格变化监听，只通知与上一次通知相比新增和清除的区间，不需要再通过{@link #getArea()}重新编码整个网格。
+     * 以设置时的网格为起点，之前的内容可以通过{@link #getMask()}获取
+     *
+     * @param listener 为null时取消监听
+     * @param delivery {@link #DELTA_PER_EDIT} 或 {@link #DELTA_PER_FRAME}
+     */
+    public void setOnMaskChangeListener(OnMaskChangeListener listener, int delivery) {
+        if (delivery != DELTA_PER_EDIT && delivery != DELTA_PER_FRAME) {
+            throw new IllegalArgumentException("delivery = " + delivery);
+        }
+        maskChangeListener = listener;
+        deltaDelivery = delivery;
+        reportedMask = listener == null ? null : new GridMask(mask);
+        reportedVersion = mask.getVersion();
+    }
+
+    /**
+     * 计算与上次通知时相比的变化并通知
+     *
+     * @param frame 是否由每帧的回调触发
+     */
+    private void dispatchMaskChange(boolean frame) {
+        if (maskChangeListener == null) {
+            return;
+        }
+        if (frame != (deltaDelivery == DELTA_PER_FRAME)) {
+            if (!frame) {
+                //按帧通知时操作结束后的变化留到下一帧
+                frameInvalidator.invalidate();
+            }
+            return;
+        }
+        boolean resized = reportedMask.getRows() != mask.getRows() || reportedMask.getColumns() != mask.getColumns();
+        if (resized) {
+            reportedMask = new GridMask(mask.getRows(), mask.getColumns());
+        } else if (reportedVersion == mask.getVersion()) {
+            return;
+        }
+        reportedVersion = mask.getVersion();
+        if (!maskDelta.compute(reportedMask, mask) && !resized) {
+            return;
+        }
+        maskDelta.setResized(resized);
+        maskChangeListener.onMaskChanged(maskDelta);
+    }
+
+    /**
+     * 网格变化监听
+     */
+    public interface OnMaskChangeListener {
+        /**
+         * 在UI线程中调用，delta会被复用，回调之外使用时需要自己复制
+         *
+         * @param delta 与上一次通知相比的变化，{@link MaskDelta#isResized()}为true时网格尺寸发生了变化，
+         *              应先清空保存的网格再应用
+         */
+        void onMaskChanged(MaskDelta delta);
+    }
+
+    /**
+     * 将网格的变化发布到共享buffer
+     */
+    private void publishMask() {
+        if (maskBuffer != null) {
+            maskBuffer.publish(mask);
+        }
+    }
+
+    /**
+     * 设置套索闭合区域时判断网格是否填充的规则，默认按网格中心判断
+     *
+     * @param policy      {@link PolygonRasterizer#FILL_POLICY_CENTER}、{@link PolygonRasterizer#FILL_POLICY_ANY}
+     *                    或 {@link PolygonRasterizer#FILL_POLICY_COVERAGE}
+     * @param minCoverage 按覆盖比例判断时的最小比例，取值(0, 1]
+     */
+    public void setFillPolicy(int policy, float minCoverage) {
+        polygonRasterizer.setFillPolicy(policy, minCoverage);
+    }
+
+    /**
+     * 设置网格线的颜色
+     */
+    public void setLineColor(int lineColor) {
+        linePaint.setColor(lineColor);
+        invalidate();
+    }
+
+    /**
+     * 设置网格线的宽度
+     */
+    public void setLineWidth(float lineWidth) {
+        linePaint.setStrokeWidth(lineWidth);
+        invalidate();
+    }
+
+    /**
+     * 设置填充区域的颜色
+     */
+    public void setFillColor(int fillColor) {
+        rectPaint.setColor(fillColor);
+        invalidate();
+    }
+
+    /**
+     * 设置绘制路径的颜色
+     */
+    public void setPathColor(int pathColor) {
+        pathPaint.setColor(pathColor);
+        invalidate();
+    }
+
+    /**
+     * 设置绘制路径的宽度
+     */
+    public void setPathWidth(float pathWidth) {
+        pathPaint.setStrokeWidth(pathWidth);
+        invalidate();
+    }
+
     private native int getRow();
 
     private native int getColumn();
 
-    private native int[][] init(int row, int column);
-
-    public native String getArea();
+    private native void init(int row, int column);
 
     public native void setMode(int mode);
 
@@ -277,6 +1380,6 @@ public class GridImageView extends AppCompatImageView {
 
     public native boolean isEraseMode();
 
-    private native void fillRect(int x, int y, boolean bFill);
+    public native boolean isFillMode();
 }
 
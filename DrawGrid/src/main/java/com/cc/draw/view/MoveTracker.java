@@ -0,0 +1,73 @@
+package com.cc.draw.view;
+
+/**
+ * 逐个处理触摸移动的采样点，位移从上一次实际应用的位置算起
+ * <p>
+ * 不足最小步长的移动不会丢弃，而是累积到之后的采样点中，采样率很高时每个采样点的位移很小，
+ * 拖动也不会停滞；与上一次应用的位置相差过远时视为坐标突变（例如多点触控），不应用这次位移，以该点作为新的起点。
+ */
+class MoveTracker {
+
+    /**
+     * 位移不足最小步长，继续累积
+     */
+    static final int MOVE_SKIP = 0;
+    /**
+     * 应用{@link #getDx()}、{@link #getDy()}
+     */
+    static final int MOVE_APPLY = 1;
+    /**
+     * 坐标突变，已以该点作为新的起点
+     */
+    static final int MOVE_JUMP = 2;
+
+    private final float maxJump;
+    private float lastX, lastY;
+    private float dx, dy;
+
+    /**
+     * @param maxJump 超过该距离的移动视为坐标突变
+     */
+    MoveTracker(float maxJump) {
+        this.maxJump = maxJump;
+    }
+
+    /**
+     * 按下时设置起点
+     */
+    void reset(float x, float y) {
+        lastX = x;
+        lastY = y;
+        dx = dy = 0;
+    }
+
+    /**
+     * 处理一个采样点
+     *
+     * @param minStep 横向或纵向位移超过该值才应用
+     * @return {@link #MOVE_SKIP}、{@link #MOVE_APPLY}或{@link #MOVE_JUMP}
+     */
+    int move(float x, float y, float minStep) {
+        dx = x - lastX;
+        dy = y - lastY;
+        if (dx * dx + dy * dy > maxJump * maxJump) {
+            reset(x, y);
+            return MOVE_JUMP;
+        }
+        if (Math.abs(dx) <= minStep && Math.abs(dy) <= minStep) {
+            dx = dy = 0;
+            return MOVE_SKIP;
+        }
+        lastX = x;
+        lastY = y;
+        return MOVE_APPLY;
+    }
+
+    float getDx() {
+        return dx;
+    }
+
+    float getDy() {
+        return dy;
+    }
+}
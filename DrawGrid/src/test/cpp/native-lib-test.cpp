@@ -0,0 +1,242 @@
+// 在Linux主机上验证native-lib.cpp：用最小化的假JNIEnv模拟GridImageView对象，
+// 检查JNI_OnLoad是否注册了全部native方法，以及注册后的方法是否读写了正确的字段；
+// 另外按GridMaskBuffer的布局构造一块内存，检查grid_mask.h的读取。
+
+#include <jni.h>
+#include <cstdio>
+#include <cstdint>
+#include <cstring>
+#include <map>
+#include <string>
+#include "grid_mask.h"
+
+extern "C" JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved);
+
+namespace {
+
+int gFailures = 0;
+
+#define EXPECT(condition) \
+    do { \
+        if (!(condition)) { \
+            std::printf("%s:%d: expectation failed: %s\n", __FILE__, __LINE__, #condition); \
+            gFailures++; \
+        } \
+    } while (0)
+
+struct FakeView {
+    jint row;
+    jint column;
+    jint mode;
+    jboolean showPath;
+};
+
+enum Field {
+    FIELD_ROW = 1, FIELD_COLUMN, FIELD_MODE, FIELD_SHOW_PATH, FIELD_MODE_DRAW, FIELD_MODE_ERASE, FIELD_MODE_FILL
+};
+
+const jint MODE_DRAW = 0x1000;
+const jint MODE_ERASE = 0x1001;
+const jint MODE_FILL = 0x1002;
+
+// 假的jclass，只用于比较地址
+char gGridImageViewClass;
+char gCCSdkClass;
+
+int gFieldLookups = 0;
+std::map<std::string, void *> gRegistered;
+
+FakeView *view(jobject obj) {
+    return reinterpret_cast<FakeView *>(obj);
+}
+
+jclass JNICALL FindClass(JNIEnv *, const char *name) {
+    if (std::strcmp(name, "com/cc/draw/view/GridImageView") == 0) {
+        return reinterpret_cast<jclass>(&gGridImageViewClass);
+    }
+    if (std::strcmp(name, "com/cc/draw/sdk/CCSdk") == 0) {
+        return reinterpret_cast<jclass>(&gCCSdkClass);
+    }
+    return NULL;
+}
+
+jobject JNICALL NewGlobalRef(JNIEnv *, jobject obj) {
+    return obj;
+}
+
+void JNICALL DeleteLocalRef(JNIEnv *, jobject) {
+}
+
+jfieldID JNICALL GetFieldID(JNIEnv *, jclass, const char *name, const char *sig) {
+    gFieldLookups++;
+    intptr_t id = 0;
+    if (std::strcmp(name, "row") == 0 && std::strcmp(sig, "I") == 0) id = FIELD_ROW;
+    if (std::strcmp(name, "column") == 0 && std::strcmp(sig, "I") == 0) id = FIELD_COLUMN;
+    if (std::strcmp(name, "mode") == 0 && std::strcmp(sig, "I") == 0) id = FIELD_MODE;
+    if (std::strcmp(name, "showPath") == 0 && std::strcmp(sig, "Z") == 0) id = FIELD_SHOW_PATH;
+    return reinterpret_cast<jfieldID>(id);
+}
+
+jfieldID JNICALL GetStaticFieldID(JNIEnv *, jclass, const char *name, const char *sig) {
+    gFieldLookups++;
+    intptr_t id = 0;
+    if (std::strcmp(name, "MODE_DRAW") == 0 && std::strcmp(sig, "I") == 0) id = FIELD_MODE_DRAW;
+    if (std::strcmp(name, "MODE_ERASE") == 0 && std::strcmp(sig, "I") == 0) id = FIELD_MODE_ERASE;
+    if (std::strcmp(name, "MODE_FILL") == 0 && std::strcmp(sig, "I") == 0) id = FIELD_MODE_FILL;
+    return reinterpret_cast<jfieldID>(id);
+}
+
+jint *intField(jobject obj, jfieldID id) {
+    switch (reinterpret_cast<intptr_t>(id)) {
+        case FIELD_ROW:
+            return &view(obj)->row;
+        case FIELD_COLUMN:
+            return &view(obj)->column;
+        case FIELD_MODE:
+            return &view(obj)->mode;
+        default:
+            return NULL;
+    }
+}
+
+jint JNICALL GetIntField(JNIEnv *, jobject obj, jfieldID id) {
+    return *intField(obj, id);
+}
+
+void JNICALL SetIntField(JNIEnv *, jobject obj, jfieldID id, jint value) {
+    *intField(obj, id) = value;
+}
+
+jboolean JNICALL GetBooleanField(JNIEnv *, jobject obj, jfieldID id) {
+    return reinterpret_cast<intptr_t>(id) == FIELD_SHOW_PATH ? view(obj)->showPath : JNI_FALSE;
+}
+
+void JNICALL SetBooleanField(JNIEnv *, jobject obj, jfieldID id, jboolean value) {
+    if (reinterpret_cast<intptr_t>(id) == FIELD_SHOW_PATH) {
+        view(obj)->showPath = value;
+    }
+}
+
+jint JNICALL GetStaticIntField(JNIEnv *, jclass, jfieldID id) {
+    switch (reinterpret_cast<intptr_t>(id)) {
+        case FIELD_MODE_DRAW:
+            return MODE_DRAW;
+        case FIELD_MODE_ERASE:
+            return MODE_ERASE;
+        case FIELD_MODE_FILL:
+            return MODE_FILL;
+        default:
+            return 0;
+    }
+}
+
+jint JNICALL RegisterNatives(JNIEnv *, jclass clazz, const JNINativeMethod *methods, jint count) {
+    std::string prefix = clazz == reinterpret_cast<jclass>(&gGridImageViewClass) ? "GridImageView." : "CCSdk.";
+    for (jint i = 0; i < count; i++) {
+        gRegistered[prefix + methods[i].name + methods[i].signature] = methods[i].fnPtr;
+    }
+    return JNI_OK;
+}
+
+JNINativeInterface_ gEnvFunctions;
+JNIEnv gEnv;
+
+jint JNICALL GetEnv(JavaVM *, void **env, jint) {
+    *env = &gEnv;
+    return JNI_OK;
+}
+
+JNIInvokeInterface_ gVmFunctions;
+JavaVM gVm;
+
+template<typename T>
+T method(const char *key) {
+    void *fn = gRegistered[key];
+    EXPECT(fn != NULL);
+    return reinterpret_cast<T>(fn);
+}
+
+void testOnLoadRegistersAllMethods() {
+    EXPECT(JNI_OnLoad(&gVm, NULL) == JNI_VERSION_1_6);
+    EXPECT(gRegistered.size() == 10);
+    EXPECT(gRegistered.count("CCSdk.initial()V") == 1);
+}
+
+void testCachedFieldAccess() {
+    FakeView fake = {0, 0, 0, JNI_FALSE};
+    jobject thiz = reinterpret_cast<jobject>(&fake);
+    int lookups = gFieldLookups;
+
+    method<void (*)(JNIEnv *, jobject, jint, jint)>("GridImageView.init(II)V")(&gEnv, thiz, 72, 128);
+    EXPECT(fake.row == 72);
+    EXPECT(fake.column == 128);
+    EXPECT(method<jint (*)(JNIEnv *, jobject)>("GridImageView.getRow()I")(&gEnv, thiz) == 72);
+    EXPECT(method<jint (*)(JNIEnv *, jobject)>("GridImageView.getColumn()I")(&gEnv, thiz) == 128);
+
+    method<void (*)(JNIEnv *, jobject, jint)>("GridImageView.setMode(I)V")(&gEnv, thiz, MODE_ERASE);
+    EXPECT(!method<jboolean (*)(JNIEnv *, jobject)>("GridImageView.isDrawMode()Z")(&gEnv, thiz));
+    EXPECT(method<jboolean (*)(JNIEnv *, jobject)>("GridImageView.isEraseMode()Z")(&gEnv, thiz));
+    EXPECT(!method<jboolean (*)(JNIEnv *, jobject)>("GridImageView.isFillMode()Z")(&gEnv, thiz));
+    method<void (*)(JNIEnv *, jobject, jint)>("GridImageView.setMode(I)V")(&gEnv, thiz, MODE_FILL);
+    EXPECT(method<jboolean (*)(JNIEnv *, jobject)>("GridImageView.isFillMode()Z")(&gEnv, thiz));
+
+    method<void (*)(JNIEnv *, jobject, jboolean)>("GridImageView.setShowPath(Z)V")(&gEnv, thiz, JNI_TRUE);
+    EXPECT(method<jboolean (*)(JNIEnv *, jobject)>("GridImageView.isShowPath()Z")(&gEnv, thiz));
+
+    // 注册后的调用不再查找字段ID
+    EXPECT(gFieldLookups == lookups);
+}
+
+void testGridMaskRead() {
+    // 3行70列，每行2个long
+    uint64_t block[4 + 3 * 2] = {0};
+    GridMaskHeader *header = reinterpret_cast<GridMaskHeader *>(block);
+    header->magic = GRID_MASK_MAGIC;
+    header->version = GRID_MASK_LAYOUT_VERSION;
+    header->rows = 3;
+    header->columns = 70;
+    header->wordsPerRow = 2;
+    header->generation = 4;
+    block[4 + 2 * 2 + 1] = 1u << 5;
+
+    uint64_t words[6];
+    GridMaskHeader read;
+    EXPECT(sizeof(GridMaskHeader) == 32);
+    EXPECT(grid_mask_read(block, words, 6, &read) == 4);
+    EXPECT(read.rows == 3 && read.columns == 70);
+    EXPECT(grid_mask_get(words, read.wordsPerRow, 2, 69));
+    EXPECT(!grid_mask_get(words, read.wordsPerRow, 2, 68));
+    EXPECT(grid_mask_get(grid_mask_words(block), 2, 2, 69));
+
+    EXPECT(grid_mask_read(block, words, 5, &read) == 0);
+    header->flags = GRID_MASK_FLAG_DETACHED;
+    EXPECT(grid_mask_read(block, words, 6, &read) == 0);
+}
+
+}
+
+int main() {
+    gEnvFunctions.FindClass = FindClass;
+    gEnvFunctions.NewGlobalRef = NewGlobalRef;
+    gEnvFunctions.DeleteLocalRef = DeleteLocalRef;
+    gEnvFunctions.GetFieldID = GetFieldID;
+    gEnvFunctions.GetStaticFieldID = GetStaticFieldID;
+    gEnvFunctions.GetIntField = GetIntField;
+    gEnvFunctions.SetIntField = SetIntField;
+    gEnvFunctions.GetBooleanField = GetBooleanField;
+    gEnvFunctions.SetBooleanField = SetBooleanField;
+    gEnvFunctions.GetStaticIntField = GetStaticIntField;
+    gEnvFunctions.RegisterNatives = RegisterNatives;
+    gEnv.functions = &gEnvFunctions;
+    gVmFunctions.GetEnv = GetEnv;
+    gVm.functions = &gVmFunctions;
+
+    testOnLoadRegistersAllMethods();
+    testCachedFieldAccess();
+    testGridMaskRead();
+
+    if (gFailures == 0) {
+        std::printf("all native tests passed\n");
+    }
+    return gFailures == 0 ? 0 : 1;
+}
@@ -0,0 +1,52 @@
+package com.cc.draw.view;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoveTrackerTest {
+
+    @Test
+    public void move_subPixelSamplesAccumulate() {
+        MoveTracker tracker = new MoveTracker(100);
+        tracker.reset(10, 20);
+        float movedX = 0, movedY = 0;
+        int applied = 0;
+        //高采样率下每个采样点只移动0.25像素，逐个按1像素的步长处理
+        for (int i = 1; i <= 400; i++) {
+            int result = tracker.move(10 + i * 0.25f, 20 - i * 0.1f, 1);
+            assertNotEquals(MoveTracker.MOVE_JUMP, result);
+            if (result == MoveTracker.MOVE_APPLY) {
+                movedX += tracker.getDx();
+                movedY += tracker.getDy();
+                applied++;
+            }
+        }
+        assertTrue(applied > 0);
+        //未应用的部分不超过一个步长
+        assertEquals(100, movedX, 1.001f);
+        assertEquals(-40, movedY, 1.001f);
+        assertTrue(movedX > 98);
+    }
+
+    @Test
+    public void move_jumpRestartsFromSample() {
+        MoveTracker tracker = new MoveTracker(100);
+        tracker.reset(0, 0);
+        assertEquals(MoveTracker.MOVE_SKIP, tracker.move(0.5f, 0, 1));
+        assertEquals(MoveTracker.MOVE_JUMP, tracker.move(300, 0, 1));
+        assertEquals(MoveTracker.MOVE_SKIP, tracker.move(300.5f, 0, 1));
+        assertEquals(MoveTracker.MOVE_APPLY, tracker.move(302, 0, 1));
+        assertEquals(2, tracker.getDx(), 0);
+        assertEquals(0, tracker.getDy(), 0);
+    }
+
+    @Test
+    public void move_zeroStepAppliesAnyMovement() {
+        MoveTracker tracker = new MoveTracker(100);
+        tracker.reset(5, 5);
+        assertEquals(MoveTracker.MOVE_SKIP, tracker.move(5, 5, 0));
+        assertEquals(MoveTracker.MOVE_APPLY, tracker.move(5.1f, 5, 0));
+        assertEquals(0.1f, tracker.getDx(), 1e-5f);
+    }
+}
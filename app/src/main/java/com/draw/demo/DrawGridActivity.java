@@ -59,6 +59,15 @@ public class DrawGridActivity extends AppCompatActivity {
             }
         });
 
+        Button fillBtn = findViewById(R.id.btn_fill);
+        fillBtn.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                gridImageView.setMode(GridImageView.MODE_FILL);
+                tv.setText(fillBtn.getText());
+            }
+        });
+
         tv.setOnClickListener(v->{
             Log.d("chenchen", "area = " + gridImageView.getArea());
         });